@@ -0,0 +1,13 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées (@Scheduled)
+ * Utilisé par les tampons write-behind et les jobs de maintenance
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
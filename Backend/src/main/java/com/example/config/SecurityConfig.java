@@ -65,9 +65,14 @@ public class SecurityConfig {
                         .requestMatchers("/api/test/**").permitAll()
                         .requestMatchers("/error").permitAll()
 
+                        // Endpoints d'administration
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
                         // Endpoints protégés (nécessitent authentification JWT)
                         .requestMatchers("/api/interests/**").authenticated()
                         .requestMatchers("/api/progress/**").authenticated()
+                        .requestMatchers("/api/leaderboard/**").authenticated()
+                        .requestMatchers("/api/dashboard/**").authenticated()
                         .requestMatchers("/api/profile/**").authenticated()
                         .requestMatchers("/api/user/**").authenticated()
                         .requestMatchers("/api/quiz/**").authenticated()
@@ -0,0 +1,81 @@
+package com.example.controller;
+
+import com.example.dto.ErrorResponse;
+import com.example.dto.QuestionAnalyticsDTO;
+import com.example.service.QuestionAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analyse des questions (réservé aux administrateurs)
+ */
+@RestController
+@RequestMapping("/api/admin/questions")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AdminAnalyticsController {
+
+    @Autowired
+    private QuestionAnalyticsService questionAnalyticsService;
+
+    /**
+     * GET /api/admin/questions/analytics?quizId=&limit=&minAttempts=
+     * Questions d'un quiz, ou questions au plus faible taux de réussite
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getAnalytics(
+            @RequestParam(value = "quizId", required = false) Long quizId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "minAttempts", required = false) Long minAttempts) {
+        try {
+            List<QuestionAnalyticsDTO> analytics = quizId != null
+                    ? questionAnalyticsService.getQuizAnalytics(quizId)
+                    : questionAnalyticsService.getHardestQuestions(Math.min(limit, 100), minAttempts);
+            return ResponseEntity.ok(analytics);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur: " + e.getMessage());
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.builder()
+                            .error("Erreur d'analyse")
+                            .message(e.getMessage())
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .build());
+        }
+    }
+
+    /**
+     * GET /api/admin/questions/{questionId}/analytics
+     * Détail d'une question : réussite, temps moyen, options choisies
+     */
+    @GetMapping("/{questionId}/analytics")
+    public ResponseEntity<?> getQuestionAnalytics(@PathVariable("questionId") Long questionId) {
+        try {
+            return ResponseEntity.ok(questionAnalyticsService.getQuestionAnalytics(questionId));
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur: " + e.getMessage());
+
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(ErrorResponse.builder()
+                            .error("Statistiques introuvables")
+                            .message(e.getMessage())
+                            .status(HttpStatus.NOT_FOUND.value())
+                            .build());
+        }
+    }
+
+    /**
+     * GET /api/admin/questions/analytics/metrics
+     * Deltas en attente et avancement du rattrapage de l'historique
+     */
+    @GetMapping("/analytics/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(questionAnalyticsService.getMetrics());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.controller;
+
+import com.example.service.ProgressEventBus;
+import com.example.service.QuizSessionSweeper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Métriques techniques des traitements en arrière-plan (réservé aux administrateurs)
+ */
+@RestController
+@RequestMapping("/api/admin/metrics")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AdminMetricsController {
+
+    @Autowired
+    private ProgressEventBus progressEventBus;
+
+    @Autowired
+    private QuizSessionSweeper quizSessionSweeper;
+
+    /**
+     * GET /api/admin/metrics/progress-events
+     * Files d'événements de progression : profondeur, retard, contre-pression
+     */
+    @GetMapping("/progress-events")
+    public ResponseEntity<Map<String, Object>> getProgressEventMetrics() {
+        return ResponseEntity.ok(progressEventBus.getMetrics());
+    }
+
+    /**
+     * GET /api/admin/metrics/quiz-session-sweeper
+     * Balayage des sessions expirées : volumes traités, durée des lots
+     */
+    @GetMapping("/quiz-session-sweeper")
+    public ResponseEntity<Map<String, Object>> getSweeperMetrics() {
+        return ResponseEntity.ok(quizSessionSweeper.getMetrics());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.controller;
+
+import com.example.dto.ErrorResponse;
+import com.example.dto.XpAuditDTO;
+import com.example.service.XpLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Audit du grand livre d'XP (réservé aux administrateurs)
+ */
+@RestController
+@RequestMapping("/api/admin/xp")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AdminXpController {
+
+    @Autowired
+    private XpLedgerService xpLedgerService;
+
+    /**
+     * GET /api/admin/xp/{userId}/audit?limit=20
+     * Solde de user_progress, solde recalculé depuis xp_events et derniers événements
+     */
+    @GetMapping("/{userId}/audit")
+    public ResponseEntity<?> audit(@PathVariable("userId") Long userId,
+                                   @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            XpAuditDTO audit = xpLedgerService.audit(userId, limit);
+            return ResponseEntity.ok(audit);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur: " + e.getMessage());
+
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(ErrorResponse.builder()
+                            .error("Audit impossible")
+                            .message(e.getMessage())
+                            .status(HttpStatus.NOT_FOUND.value())
+                            .build());
+        }
+    }
+}
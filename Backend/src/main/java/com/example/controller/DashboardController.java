@@ -0,0 +1,39 @@
+package com.example.controller;
+
+import com.example.dto.DashboardDTO;
+import com.example.dto.ErrorResponse;
+import com.example.service.DashboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class DashboardController {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    /**
+     * GET /api/dashboard
+     * Progression, semaine, niveau, statistiques, vidéos récentes et recommandations en un appel
+     * Les sections en échec ou trop lentes sont listées dans "errors" (réponse partielle)
+     */
+    @GetMapping
+    public ResponseEntity<?> getDashboard() {
+        try {
+            DashboardDTO dashboard = dashboardService.getDashboard();
+            return ResponseEntity.ok(dashboard);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErrorResponse.builder()
+                            .error("Erreur serveur")
+                            .message("Impossible de récupérer le tableau de bord: " + e.getMessage())
+                            .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                            .build());
+        }
+    }
+}
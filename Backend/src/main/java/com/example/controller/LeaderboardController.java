@@ -0,0 +1,83 @@
+package com.example.controller;
+
+import com.example.dto.ErrorResponse;
+import com.example.dto.LeaderboardDTO;
+import com.example.service.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class LeaderboardController {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    /**
+     * GET /api/leaderboard
+     * Classement global par XP total
+     */
+    @GetMapping
+    public ResponseEntity<?> getGlobal(@RequestParam(required = false, defaultValue = "10") Integer limit) {
+        try {
+            LeaderboardDTO leaderboard = leaderboardService.getGlobal(limit);
+            return ResponseEntity.ok(leaderboard);
+        } catch (Exception e) {
+            return error("Impossible de récupérer le classement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/leaderboard/weekly
+     * Classement de la semaine en cours (XP gagnés depuis lundi)
+     */
+    @GetMapping("/weekly")
+    public ResponseEntity<?> getWeekly(@RequestParam(required = false, defaultValue = "10") Integer limit) {
+        try {
+            LeaderboardDTO leaderboard = leaderboardService.getWeekly(limit);
+            return ResponseEntity.ok(leaderboard);
+        } catch (Exception e) {
+            return error("Impossible de récupérer le classement hebdomadaire: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/leaderboard/categories
+     * Catégories disposant d'un classement
+     */
+    @GetMapping("/categories")
+    public ResponseEntity<List<String>> getCategories() {
+        return ResponseEntity.ok(leaderboardService.getCategories());
+    }
+
+    /**
+     * GET /api/leaderboard/category/{category}
+     * Classement par catégorie de quiz
+     */
+    @GetMapping("/category/{category}")
+    public ResponseEntity<?> getByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        try {
+            LeaderboardDTO leaderboard = leaderboardService.getByCategory(category, limit);
+            return ResponseEntity.ok(leaderboard);
+        } catch (Exception e) {
+            return error("Impossible de récupérer le classement de la catégorie: " + e.getMessage());
+        }
+    }
+
+    private ResponseEntity<ErrorResponse> error(String message) {
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorResponse.builder()
+                        .error("Erreur serveur")
+                        .message(message)
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                        .build());
+    }
+}
@@ -118,6 +118,26 @@ public class ProgressController {
         }
     }
 
+    /**
+     * GET /api/progress/activity?days=30
+     * Activité jour par jour sur les N derniers jours (365 maximum)
+     */
+    @GetMapping("/activity")
+    public ResponseEntity<?> getDailyActivity(@RequestParam(required = false, defaultValue = "30") Integer days) {
+        try {
+            List<WeeklyProgressDTO.DailyProgress> activity = progressService.getDailyActivity(days);
+            return ResponseEntity.ok(activity);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErrorResponse.builder()
+                            .error("Erreur serveur")
+                            .message("Impossible de récupérer l'activité: " + e.getMessage())
+                            .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                            .build());
+        }
+    }
+
     /**
      * GET /api/progress/debug/weekly
      * Endpoint de débogage pour la progression hebdomadaire
@@ -230,12 +250,15 @@ public class ProgressController {
      * Ajouter des XP à l'utilisateur
      */
     @PostMapping("/xp")
-    public ResponseEntity<?> addXp(@Valid @RequestBody AddXpRequest request) {
+    public ResponseEntity<?> addXp(
+            @Valid @RequestBody AddXpRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             AddXpResponse response = progressService.addXp(
                     request.getXpAmount(),
                     request.getReason(),
-                    request.getSource()
+                    request.getSource(),
+                    idempotencyKey
             );
 
             return ResponseEntity.ok(response);
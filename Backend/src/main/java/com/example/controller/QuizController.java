@@ -2,12 +2,14 @@ package com.example.controller;
 
 import com.example.dto.ErrorResponse;
 import com.example.dto.QuizDTO;
-import com.example.dto.QuizDetailDTO;
+import com.example.service.QuizDetailCache;
 import com.example.service.QuizService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -88,16 +90,24 @@ public class QuizController {
     /**
      * GET /api/quizzes/{id}/detail
      * Récupérer les détails complets d'un quiz avant de le commencer
+     * JSON pré-sérialisé avec ETag : 304 si le client a déjà cette version
      */
     @GetMapping("/{id}/detail")
-    public ResponseEntity<?> getQuizDetail(@PathVariable("id") Long id) {
+    public ResponseEntity<?> getQuizDetail(@PathVariable("id") Long id, WebRequest request) {
         try {
             System.out.println("📥 Récupération des détails du quiz #" + id);
 
-            QuizDetailDTO quizDetail = quizService.getQuizDetail(id);
+            QuizDetailCache.QuizDetailPayload quizDetail = quizService.getQuizDetail(id);
 
-            System.out.println("✅ Détails du quiz récupérés: " + quizDetail.getTitle());
-            return ResponseEntity.ok(quizDetail);
+            if (request.checkNotModified(quizDetail.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(quizDetail.etag()).build();
+            }
+
+            System.out.println("✅ Détails du quiz récupérés: " + quizDetail.json().length + " octets");
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(quizDetail.etag())
+                    .body(quizDetail.json());
         } catch (RuntimeException e) {
             System.err.println("❌ Erreur: " + e.getMessage());
 
@@ -128,6 +128,44 @@ public class QuizSessionController {
         }
     }
 
+    /**
+     * POST /api/quiz-session/submit-answers
+     * Soumettre un lot de réponses (et terminer le quiz si complete = true)
+     */
+    @PostMapping("/submit-answers")
+    public ResponseEntity<?> submitAnswers(@RequestBody BulkSubmitAnswersDTO bulkDTO) {
+        try {
+            System.out.println("📥 Soumission groupée - Session: " + bulkDTO.getSessionId() +
+                    ", Réponses: " + (bulkDTO.getAnswers() != null ? bulkDTO.getAnswers().size() : 0));
+
+            BulkAnswerResultDTO result = quizSessionService.submitAnswers(bulkDTO);
+
+            System.out.println("✅ Lot enregistré - Score: " + result.getCurrentScore());
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur: " + e.getMessage());
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.builder()
+                            .error("Erreur de soumission")
+                            .message(e.getMessage())
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .build());
+        } catch (Exception e) {
+            System.err.println("❌ Erreur serveur: " + e.getMessage());
+            e.printStackTrace();
+
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErrorResponse.builder()
+                            .error("Erreur serveur")
+                            .message("Impossible de soumettre les réponses: " + e.getMessage())
+                            .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                            .build());
+        }
+    }
+
     /**
      * POST /api/quiz-session/complete/{sessionId}
      * Terminer le quiz et obtenir le résultat
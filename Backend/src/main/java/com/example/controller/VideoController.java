@@ -10,6 +10,11 @@ import com.example.model.VideoProgress;
 import com.example.repository.UserRepository;
 import com.example.repository.VideoRepository;
 import com.example.service.VideoNoteService;
+import com.example.service.VideoSearchIndex;
+import com.example.service.VideoRecommendationIndex;
+import com.example.service.VideoSimilarityIndex;
+import com.example.service.VideoSuggestionIndex;
+import com.example.service.VideoViewCounter;
 
 import com.example.service.VideoService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -56,6 +61,21 @@ public class VideoController {
     @Autowired
     private VideoRepository videoRepository;
 
+    @Autowired
+    private VideoSearchIndex videoSearchIndex;
+
+    @Autowired
+    private VideoSuggestionIndex videoSuggestionIndex;
+
+    @Autowired
+    private VideoViewCounter videoViewCounter;
+
+    @Autowired
+    private VideoRecommendationIndex videoRecommendationIndex;
+
+    @Autowired
+    private VideoSimilarityIndex videoSimilarityIndex;
+
     // ========== MÉTHODE UTILITAIRE ==========
 
     /**
@@ -76,6 +96,11 @@ public class VideoController {
         try {
             long count = videoRepository.count();
             videoRepository.deleteAll();
+            videoSearchIndex.clear();
+            videoSuggestionIndex.clear();
+            videoViewCounter.clear();
+            videoRecommendationIndex.clear();
+            videoSimilarityIndex.clear();
             return ResponseEntity.ok(
                     new MessageResponse(count + " vidéos supprimées avec succès")
             );
@@ -103,6 +128,7 @@ public class VideoController {
                 List<Video> videos = khanAcademyService.searchVideosByCategory(category, 1);
                 imported += videos.size();
             }
+            videoRecommendationIndex.rebuild();
 
             return ResponseEntity.ok(
                     new MessageResponse(imported + " vidéos d'exemple importées avec succès")
@@ -124,6 +150,7 @@ public class VideoController {
             log.info("🚀 Démarrage import Khan Academy COMPLET");
 
             Map<String, Integer> results = khanAcademyService.importAllCategories();
+            videoRecommendationIndex.rebuild();
 
             int total = results.values().stream().mapToInt(Integer::intValue).sum();
 
@@ -164,6 +191,7 @@ public class VideoController {
     /**
      * GET /api/videos - Liste paginée des vidéos avec filtres et recherche
      * Supporte la recherche textuelle, filtres par catégorie/difficulté, tri
+     * Avec cursor (vide pour la première page) : pagination par curseur, total via withTotal=true
      */
     @GetMapping
     @Operation(summary = "Liste des vidéos",
@@ -174,7 +202,9 @@ public class VideoController {
             @RequestParam(required = false) String difficulty,
             @RequestParam(required = false, defaultValue = "recent") String sortBy,
             @RequestParam(required = false, defaultValue = "0") Integer page,
-            @RequestParam(required = false, defaultValue = "20") Integer size) {
+            @RequestParam(required = false, defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") Boolean withTotal) {
 
         VideoSearchRequest request = VideoSearchRequest.builder()
                 .query(query)
@@ -183,6 +213,8 @@ public class VideoController {
                 .sortBy(sortBy)
                 .page(page)
                 .size(size)
+                .cursor(cursor)
+                .withTotal(withTotal)
                 .build();
 
         VideoListResponse response = videoService.listVideos(request);
@@ -213,6 +245,20 @@ public class VideoController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /api/videos/suggest - Autocomplétion instantanée
+     * Titres, catégories et tags correspondant au préfixe saisi (accents ignorés)
+     */
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggestions",
+            description = "Suggestions d'autocomplétion pour le préfixe saisi (ex: \"equa\", \"mathematiques\")")
+    public ResponseEntity<List<VideoSuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "8") Integer limit) {
+        List<VideoSuggestionDTO> suggestions = videoService.suggest(q, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     /**
      * GET /api/videos/categories - Liste des catégories disponibles
      */
@@ -272,6 +318,18 @@ public class VideoController {
                 .body(favorites);
     }
 
+    /**
+     * GET /api/videos/my-favorites/page - Favoris paginés par curseur
+     */
+    @GetMapping("/my-favorites/page")
+    @Operation(summary = "Favoris paginés",
+            description = "Récupère les favoris page par page (curseur renvoyé dans nextCursor)")
+    public ResponseEntity<CursorPage<VideoDTO>> getFavoritesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        return ResponseEntity.ok(videoService.getFavoriteVideosPage(cursor, size));
+    }
+
     // /**
     //  * POST /api/videos/{id}/favorite - Ajouter aux favoris
     //  */
@@ -332,6 +390,18 @@ public class VideoController {
         return ResponseEntity.ok(recent);
     }
 
+    /**
+     * GET /api/videos/history - Historique complet de visionnage, paginé par curseur
+     */
+    @GetMapping("/history")
+    @Operation(summary = "Historique de visionnage",
+            description = "Récupère l'historique de visionnage page par page (curseur renvoyé dans nextCursor)")
+    public ResponseEntity<CursorPage<VideoDTO>> getWatchHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        return ResponseEntity.ok(videoService.getWatchHistoryPage(cursor, size));
+    }
+
     // ========== BF-032 : Recommandations Personnalisées ==========
 
     /**
@@ -367,9 +437,10 @@ public class VideoController {
             description = "Ajoute une note personnelle et gagne 10 XP")
     public ResponseEntity<VideoNoteResponse> addNote(
             @PathVariable Long videoId,
-            @Valid @RequestBody VideoNoteRequest request) {
+            @Valid @RequestBody VideoNoteRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
-        VideoNoteResponse response = videoNoteService.addNote(videoId, request);
+        VideoNoteResponse response = videoNoteService.addNote(videoId, request, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     /**
@@ -409,6 +480,18 @@ public class VideoController {
         return ResponseEntity.ok(notes);
     }
 
+    /**
+     * GET /api/videos/notes/page - Notes de l'utilisateur paginées par curseur
+     */
+    @GetMapping("/notes/page")
+    @Operation(summary = "Notes paginées",
+            description = "Récupère les notes de l'utilisateur page par page (curseur renvoyé dans nextCursor)")
+    public ResponseEntity<CursorPage<VideoNoteDTO>> getUserNotesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        return ResponseEntity.ok(videoNoteService.getUserNotesPage(cursor, size));
+    }
+
     // ========== BF-033 : Statistiques Vidéos ==========
 
     /**
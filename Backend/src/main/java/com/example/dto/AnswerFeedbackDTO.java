@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 public class AnswerFeedbackDTO {
+    private Long questionId;
     private Boolean isCorrect;
     private String correctAnswer;
     private String explanation;
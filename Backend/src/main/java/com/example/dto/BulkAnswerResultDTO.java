@@ -0,0 +1,23 @@
+package com.example.dto;
+
+import com.example.model.QuizResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkAnswerResultDTO {
+    private Long sessionId;
+    private List<AnswerFeedbackDTO> feedback;
+    private Integer currentScore;
+    private Integer questionsAnswered;
+    private Integer totalQuestions;
+    private Boolean completed;
+    private QuizResult result;
+}
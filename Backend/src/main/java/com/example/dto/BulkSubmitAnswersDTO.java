@@ -0,0 +1,19 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSubmitAnswersDTO {
+    private Long sessionId;
+    private List<BulkAnswerItemDTO> answers;
+    // Terminer la session dans la même transaction (quiz passé hors ligne)
+    private Boolean complete;
+}
@@ -0,0 +1,34 @@
+package com.example.dto;
+
+import com.example.dto.video.VideoDTO;
+import com.example.dto.video.VideoRecommendationsResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tableau de bord composite : une section nulle est listée dans errors
+ * (délai dépassé ou erreur), les autres sont renvoyées quand même
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardDTO {
+    private UserProgressDTO progress;
+    private WeeklyProgressDTO weekly;
+    private LevelInfoDTO level;
+    private StatisticsDTO statistics;
+    private List<VideoDTO> recentVideos;
+    private VideoRecommendationsResponse recommendations;
+    private List<QuizDTO> recommendedQuizzes;
+
+    private Boolean partial;
+    private Map<String, String> errors; // section → cause
+    private LocalDateTime generatedAt;
+}
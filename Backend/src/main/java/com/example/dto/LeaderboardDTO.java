@@ -0,0 +1,23 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardDTO {
+    private String board;                   // GLOBAL, WEEKLY, CATEGORY
+    private String category;                // Renseigné pour un classement par catégorie
+    private Integer totalEntries;
+    private List<LeaderboardEntryDTO> top;
+    private LeaderboardEntryDTO me;         // null si absent ou masqué (showInLeaderboard=false)
+    private List<LeaderboardEntryDTO> aroundMe;
+    private LocalDateTime generatedAt;      // Date du snapshot
+}
@@ -0,0 +1,17 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryDTO {
+    private Integer rank;          // Ex-aequo : même rang (1, 2, 2, 4)
+    private Long userId;
+    private String displayName;
+    private Long score;            // XP (global, semaine ou catégorie)
+}
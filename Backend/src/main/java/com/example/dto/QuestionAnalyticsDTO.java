@@ -0,0 +1,40 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Analyse d'une question : volume, taux de réussite, temps moyen,
+ * répartition des options choisies
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuestionAnalyticsDTO {
+    private Long questionId;
+    private Long quizId;
+    private String questionText;
+    private String type;
+    private Long attempts;
+    private Double correctRate;        // Pourcentage
+    private Double averageTimeSeconds;
+    private List<OptionPick> options;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OptionPick {
+        private Long optionId;
+        private String optionLetter;
+        private String optionText;
+        private Boolean correct;
+        private Long picks;
+        private Double pickRate;       // Pourcentage des réponses
+    }
+}
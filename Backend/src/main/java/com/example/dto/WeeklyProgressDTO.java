@@ -61,6 +61,7 @@ public class WeeklyProgressDTO {
         private String fullDate;
         private int xpEarned;
         private int quizCompleted;
+        private int videosCompleted;
         private int studyTimeMinutes;
         private boolean hasActivity;
     }
@@ -0,0 +1,24 @@
+package com.example.dto;
+
+import com.example.model.XpEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Audit du solde d'XP d'un utilisateur : user_progress comparé au grand livre
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class XpAuditDTO {
+    private Long userId;
+    private Long totalXp;          // user_progress.total_xp
+    private Long ledgerBalance;    // SUM(xp_events.amount)
+    private Long drift;            // totalXp - ledgerBalance (0 attendu)
+    private List<XpEvent> recentEvents;
+}
@@ -17,5 +17,6 @@ public class VideoListResponse {
     private Long totalVideos;
     private Boolean hasNext;
     private Boolean hasPrevious;
+    private String nextCursor; // Renseigné en mode curseur tant qu'il reste des vidéos
 }
 
@@ -13,4 +13,9 @@ public class VideoRecommendationsResponse {
     private List<VideoDTO> recommended;
     private String reason; // Raison de la recommandation
     private Integer totalRecommendations;
+
+    // Section "Parce que vous avez regardé X" (filtrage collaboratif item-item)
+    private Long becauseYouWatchedVideoId;
+    private String becauseYouWatchedTitle;
+    private List<VideoDTO> becauseYouWatched;
 }
@@ -16,4 +16,6 @@ public class VideoSearchRequest {
     private String sortBy; // recent, popular, duration
     private Integer page;
     private Integer size;
+    private String cursor; // Pagination par curseur ("" = première page), remplace page
+    private Boolean withTotal; // Calculer le total (COUNT) en mode curseur
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.dto.video;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VideoSuggestionDTO {
+    private String text;     // Texte affiché (accents d'origine conservés)
+    private String type;     // TITLE, CATEGORY, TAG
+    private Long videoId;    // Renseigné uniquement pour les titres
+}
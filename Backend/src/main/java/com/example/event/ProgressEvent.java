@@ -0,0 +1,38 @@
+package com.example.event;
+
+/**
+ * Événements métier qui déclenchent la mise à jour de la progression
+ * (XP, niveau, streak, compteurs, agrégats journaliers)
+ *
+ * Publiés par les services après l'écriture principale, appliqués en
+ * arrière-plan par ProgressEventBus, dans l'ordre pour un même utilisateur.
+ * Les montants d'XP sont décidés par le producteur : le consommateur ne fait
+ * qu'appliquer.
+ */
+public sealed interface ProgressEvent {
+
+    Long userId();
+
+    /**
+     * Quiz terminé : le résultat est déjà enregistré
+     */
+    record QuizCompleted(Long userId, Long quizResultId) implements ProgressEvent {
+    }
+
+    /**
+     * Première complétion d'une vidéo ; milestoneXp = 0 si aucun palier atteint
+     */
+    record VideoCompleted(Long userId, Long videoId, String videoTitle, int watchMinutes,
+                          int xp, int completedCount, int milestoneXp) implements ProgressEvent {
+    }
+
+    /**
+     * Note ajoutée ; idempotencyKey = clé fournie par le client ou id de la note
+     */
+    record NoteAdded(Long userId, Long noteId, String videoTitle, int xp,
+                     String idempotencyKey) implements ProgressEvent {
+    }
+
+    record FavoriteAdded(Long userId, Long videoId, String videoTitle, int xp) implements ProgressEvent {
+    }
+}
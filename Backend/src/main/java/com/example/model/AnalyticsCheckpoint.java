@@ -0,0 +1,34 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avancement d'un job de rattrapage : dernier id traité et borne à atteindre
+ */
+@Entity
+@Table(name = "analytics_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(name = "horizon_id", nullable = false)
+    private Long horizonId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de fois qu'une option a été choisie pour une question
+ */
+@Entity
+@Table(name = "question_option_picks",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"question_id", "option_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuestionOptionPick {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    @Column(name = "option_id", nullable = false)
+    private Long optionId;
+
+    @Column(name = "pick_count", nullable = false)
+    @Builder.Default
+    private Long pickCount = 0L;
+}
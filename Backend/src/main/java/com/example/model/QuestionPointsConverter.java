@@ -0,0 +1,49 @@
+package com.example.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Points obtenus par question d'une session, stockés en une seule colonne
+ * sous la forme "questionId:points,questionId:points"
+ */
+@Converter
+public class QuestionPointsConverter implements AttributeConverter<Map<Long, Integer>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Map<Long, Integer> points) {
+        if (points == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(points.size() * 8);
+        for (Map.Entry<Long, Integer> entry : points.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Map<Long, Integer> convertToEntityAttribute(String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<Long, Integer> points = new LinkedHashMap<>();
+        if (value.isEmpty()) {
+            return points;
+        }
+        for (String pair : value.split(",")) {
+            int separator = pair.indexOf(':');
+            if (separator > 0) {
+                points.put(Long.parseLong(pair.substring(0, separator)),
+                        Integer.parseInt(pair.substring(separator + 1)));
+            }
+        }
+        return points;
+    }
+}
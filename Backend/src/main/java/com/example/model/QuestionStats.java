@@ -0,0 +1,49 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Statistiques agrégées d'une question (toutes sessions)
+ * Alimentées par delta à chaque réponse et par le rattrapage de l'historique
+ */
+@Entity
+@Table(name = "question_stats",
+       indexes = @Index(name = "idx_question_stats_quiz", columnList = "quiz_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuestionStats {
+
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+
+    @Column(name = "quiz_id", nullable = false)
+    private Long quizId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long attempts = 0L;
+
+    @Column(name = "correct_count", nullable = false)
+    @Builder.Default
+    private Long correctCount = 0L;
+
+    @Column(name = "time_sum_seconds", nullable = false)
+    @Builder.Default
+    private Long timeSumSeconds = 0L;
+
+    @Column(name = "timed_attempts", nullable = false)
+    @Builder.Default
+    private Long timedAttempts = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
  * Représente le résultat final d'un quiz terminé
  */
 @Entity
-@Table(name = "quiz_results")
+@Table(name = "quiz_results",
+       indexes = @Index(name = "idx_quiz_results_user_quiz", columnList = "user_id, quiz_id, completed_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,35 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Histogramme des scores d'un quiz : nombre de résultats par score (0-100)
+ * Au plus 101 lignes par quiz ; sert au calcul exact des rangs
+ */
+@Entity
+@Table(name = "quiz_score_histogram",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"quiz_id", "score"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizScoreCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "quiz_id", nullable = false)
+    private Long quizId;
+
+    @Column(nullable = false)
+    private Integer score;
+
+    @Column(name = "result_count", nullable = false)
+    @Builder.Default
+    private Long resultCount = 0L;
+}
@@ -7,13 +7,20 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Représente une session de quiz en cours
  * Permet de sauvegarder la progression et de reprendre plus tard
  */
 @Entity
-@Table(name = "quiz_sessions")
+@Table(name = "quiz_sessions",
+       indexes = {
+               @Index(name = "idx_quiz_sessions_open_expiry", columnList = "is_completed, expires_at"),
+               @Index(name = "idx_quiz_sessions_open_started", columnList = "is_completed, started_at"),
+               @Index(name = "idx_quiz_sessions_user_quiz", columnList = "user_id, quiz_id, is_completed")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,6 +60,21 @@ public class QuizSession {
     @Column(name = "total_points_possible")
     private Integer totalPointsPossible = 0;
 
+    // Compteurs tenus à jour à chaque réponse (évite de relire toutes les réponses)
+    @Column(name = "answered_count")
+    @Builder.Default
+    private Integer answeredCount = 0;
+
+    @Column(name = "correct_count")
+    @Builder.Default
+    private Integer correctCount = 0;
+
+    // questionId → points obtenus ; null pour les sessions antérieures aux compteurs
+    @Convert(converter = QuestionPointsConverter.class)
+    @Column(name = "question_points", columnDefinition = "TEXT")
+    @Builder.Default
+    private Map<Long, Integer> questionPoints = new LinkedHashMap<>();
+
     @Column(name = "is_completed")
     private Boolean isCompleted = false;
 
@@ -0,0 +1,44 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistiques agrégées d'un quiz (tous utilisateurs)
+ * Alimentées incrémentalement à chaque résultat enregistré
+ */
+@Entity
+@Table(name = "quiz_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizStats {
+
+    @Id
+    @Column(name = "quiz_id")
+    private Long quizId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long attempts = 0L;
+
+    @Column(name = "completed_attempts", nullable = false)
+    @Builder.Default
+    private Long completedAttempts = 0L;
+
+    @Column(name = "score_sum", nullable = false)
+    @Builder.Default
+    private Long scoreSum = 0L;
+
+    @Column(name = "time_sum_minutes", nullable = false)
+    @Builder.Default
+    private Long timeSumMinutes = 0L;
+
+    @Column(name = "timed_attempts", nullable = false)
+    @Builder.Default
+    private Long timedAttempts = 0L;
+}
@@ -0,0 +1,44 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Meilleurs résultats d'un quiz, bornés aux K premiers
+ */
+@Entity
+@Table(name = "quiz_top_scores",
+       indexes = @Index(name = "idx_quiz_top_scores_rank", columnList = "quiz_id, score, completed_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizTopScore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "quiz_id", nullable = false)
+    private Long quizId;
+
+    @Column(name = "result_id", nullable = false)
+    private Long resultId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column
+    private String username;
+
+    @Column(nullable = false)
+    private Integer score;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -9,7 +9,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_answers")
+@Table(name = "user_answers",
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_answers_session_question",
+                                             columnNames = {"session_id", "question_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,50 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Activité agrégée d'un utilisateur pour une journée
+ * Alimentée incrémentalement à chaque événement (XP, quiz, vidéo)
+ */
+@Entity
+@Table(name = "user_daily_activity",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "activity_date"}),
+       indexes = @Index(name = "idx_daily_activity_date", columnList = "activity_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserDailyActivity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    @Column(name = "xp_earned", nullable = false)
+    @Builder.Default
+    private Integer xpEarned = 0;
+
+    @Column(name = "quiz_completed", nullable = false)
+    @Builder.Default
+    private Integer quizCompleted = 0;
+
+    @Column(name = "videos_completed", nullable = false)
+    @Builder.Default
+    private Integer videosCompleted = 0;
+
+    @Column(name = "study_minutes", nullable = false)
+    @Builder.Default
+    private Integer studyMinutes = 0;
+}
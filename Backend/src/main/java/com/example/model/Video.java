@@ -11,7 +11,12 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "videos")
+@Table(name = "videos", indexes = {
+        // Pagination par curseur du catalogue (une clé par tri)
+        @Index(name = "idx_videos_active_created", columnList = "is_active, created_at, id"),
+        @Index(name = "idx_videos_active_views", columnList = "is_active, view_count, id"),
+        @Index(name = "idx_videos_active_duration", columnList = "is_active, duration, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -10,7 +10,8 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 @Entity
 @Table(name = "video_favorites",
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "video_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "video_id"}),
+       indexes = @Index(name = "idx_video_favorites_user_added", columnList = "user_id, added_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
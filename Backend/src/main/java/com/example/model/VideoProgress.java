@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "video_progress", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "video_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "video_id"}),
+       indexes = @Index(name = "idx_video_progress_user_watched", columnList = "user_id, last_watched_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
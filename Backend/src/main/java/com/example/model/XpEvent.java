@@ -0,0 +1,46 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Écriture du grand livre d'XP (ajout seul, jamais modifiée)
+ * La clé d'idempotence empêche d'attribuer deux fois le même événement
+ */
+@Entity
+@Table(name = "xp_events",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}),
+       indexes = @Index(name = "idx_xp_events_user_created", columnList = "user_id, created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class XpEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer amount;
+
+    @Column(nullable = false, length = 50)
+    private String source; // VIDEO_COMPLETED, NOTE_ADDED, FAVORITE_ADDED, QUIZ_COMPLETED...
+
+    @Column
+    private String reason;
+
+    @Column(name = "idempotency_key", nullable = false, length = 191)
+    private String idempotencyKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import com.example.model.AnalyticsCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalyticsCheckpointRepository extends JpaRepository<AnalyticsCheckpoint, String> {
+}
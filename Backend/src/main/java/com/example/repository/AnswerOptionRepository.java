@@ -4,10 +4,16 @@ import com.example.model.AnswerOption;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AnswerOptionRepository extends JpaRepository<AnswerOption, Long> {
     List<AnswerOption> findByQuestionId(Long questionId);
     List<AnswerOption> findByQuestionIdOrderByOrderNumber(Long questionId);
+
+    /**
+     * Options de plusieurs questions en une requête (chargement d'un quiz complet)
+     */
+    List<AnswerOption> findByQuestionIdInOrderByOrderNumber(Collection<Long> questionIds);
 }
\ No newline at end of file
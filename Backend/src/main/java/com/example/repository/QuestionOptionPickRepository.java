@@ -0,0 +1,13 @@
+package com.example.repository;
+
+import com.example.model.QuestionOptionPick;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuestionOptionPickRepository extends JpaRepository<QuestionOptionPick, Long> {
+    List<QuestionOptionPick> findByQuestionIdIn(Collection<Long> questionIds);
+}
@@ -2,6 +2,8 @@ package com.example.repository;
 
 import com.example.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,4 +27,32 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
      * Compter le nombre de questions d'un quiz
      */
     long countByQuizId(Long quizId);
+
+    // Empreinte du contenu d'un quiz : somme de CRC32 par ligne (questions et options), donc
+    // sensible à toute modification, y compris faite en SQL direct sans toucher updated_at
+    String CONTENT_VERSION_SELECT =
+            "SELECT qz.id, CONCAT_WS('|', qz.updated_at, qz.is_active, " +
+            "  CRC32(CONCAT_WS('|', qz.title, qz.description, qz.category, qz.difficulty, " +
+            "    qz.duration_minutes, qz.xp_reward)), " +
+            "  COALESCE(qs.cnt, 0), COALESCE(qs.crc, 0), COALESCE(os.cnt, 0), COALESCE(os.crc, 0)) " +
+            "FROM quizzes qz " +
+            "LEFT JOIN (SELECT q.quiz_id, COUNT(*) AS cnt, SUM(CRC32(CONCAT_WS('|', q.id, q.type, q.question_text, " +
+            "    q.explanation, q.image_url, q.points, q.order_number, q.updated_at))) AS crc " +
+            "  FROM questions q GROUP BY q.quiz_id) qs ON qs.quiz_id = qz.id " +
+            "LEFT JOIN (SELECT q.quiz_id, COUNT(*) AS cnt, SUM(CRC32(CONCAT_WS('|', o.id, o.question_id, " +
+            "    o.option_text, o.option_letter, o.is_correct, o.order_number))) AS crc " +
+            "  FROM answer_options o JOIN questions q ON q.id = o.question_id GROUP BY q.quiz_id) os " +
+            "  ON os.quiz_id = qz.id ";
+
+    /**
+     * Version du contenu de chaque quiz (y compris sans questions) : (quizId, version)
+     */
+    @Query(value = CONTENT_VERSION_SELECT, nativeQuery = true)
+    List<Object[]> findContentVersions();
+
+    /**
+     * Version du contenu d'un quiz, même calcul que findContentVersions
+     */
+    @Query(value = CONTENT_VERSION_SELECT + "WHERE qz.id = :quizId", nativeQuery = true)
+    List<Object[]> findContentVersion(@Param("quizId") Long quizId);
 }
\ No newline at end of file
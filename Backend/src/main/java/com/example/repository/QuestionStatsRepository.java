@@ -0,0 +1,22 @@
+package com.example.repository;
+
+import com.example.model.QuestionStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuestionStatsRepository extends JpaRepository<QuestionStats, Long> {
+    List<QuestionStats> findByQuizIdOrderByQuestionIdAsc(Long quizId);
+
+    /**
+     * Questions au plus faible taux de réussite (au moins minAttempts réponses)
+     */
+    @Query("SELECT s FROM QuestionStats s WHERE s.attempts >= :minAttempts " +
+           "ORDER BY (s.correctCount * 1.0 / s.attempts) ASC, s.attempts DESC")
+    List<QuestionStats> findHardest(@Param("minAttempts") long minAttempts, Pageable pageable);
+}
@@ -37,6 +37,16 @@ public interface QuizResultRepository extends JpaRepository<QuizResult, Long> {
         org.springframework.data.domain.Pageable pageable
     );
 
+    /**
+     * XP des quiz par (utilisateur, catégorie) pour les utilisateurs visibles au classement
+     * Colonnes : userId, nom, prénom, catégorie, XP
+     */
+    @Query("SELECT u.id, u.nom, u.prenom, q.category, SUM(qr.xpEarned) FROM QuizResult qr " +
+           "JOIN qr.user u JOIN qr.quiz q " +
+           "WHERE NOT EXISTS (SELECT s.id FROM UserSettings s WHERE s.user = u AND s.showInLeaderboard = false) " +
+           "GROUP BY u.id, u.nom, u.prenom, q.category")
+    List<Object[]> sumXpByUserAndCategory();
+
     @Query("SELECT COUNT(qr) FROM QuizResult qr WHERE qr.user.id = :userId")
     Integer countByUserId(@Param("userId") Long userId);
 
@@ -0,0 +1,12 @@
+package com.example.repository;
+
+import com.example.model.QuizScoreCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizScoreCountRepository extends JpaRepository<QuizScoreCount, Long> {
+    List<QuizScoreCount> findByQuizId(Long quizId);
+}
@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import com.example.model.QuizStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QuizStatsRepository extends JpaRepository<QuizStats, Long> {
+}
@@ -0,0 +1,12 @@
+package com.example.repository;
+
+import com.example.model.QuizTopScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizTopScoreRepository extends JpaRepository<QuizTopScore, Long> {
+    List<QuizTopScore> findTop5ByQuizIdOrderByScoreDescCompletedAtAscResultIdAsc(Long quizId);
+}
@@ -2,6 +2,8 @@ package com.example.repository;
 
 import com.example.model.UserAnswer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,9 @@ public interface UserAnswerRepository extends JpaRepository<UserAnswer, Long> {
     List<UserAnswer> findBySessionId(Long sessionId);
     Optional<UserAnswer> findBySessionIdAndQuestionId(Long sessionId, Long questionId);
     long countBySessionId(Long sessionId);
-}
\ No newline at end of file
+
+    // Projection légère pour la soumission groupée : questionId, id, isCorrect, userAnswer, timeSpentSeconds
+    @Query("SELECT ua.question.id, ua.id, ua.isCorrect, ua.userAnswer, ua.timeSpentSeconds " +
+           "FROM UserAnswer ua WHERE ua.session.id = :sessionId")
+    List<Object[]> findAnswerStatesBySessionId(@Param("sessionId") Long sessionId);
+}
@@ -0,0 +1,33 @@
+package com.example.repository;
+
+import com.example.model.UserDailyActivity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserDailyActivityRepository extends JpaRepository<UserDailyActivity, Long> {
+
+    /**
+     * Journées d'activité d'un utilisateur sur une période (bornes incluses)
+     */
+    @Query("SELECT a FROM UserDailyActivity a WHERE a.userId = :userId " +
+           "AND a.activityDate BETWEEN :from AND :to ORDER BY a.activityDate ASC")
+    List<UserDailyActivity> findRange(@Param("userId") Long userId,
+                                      @Param("from") LocalDate from,
+                                      @Param("to") LocalDate to);
+
+    /**
+     * XP par utilisateur depuis une date, utilisateurs visibles au classement
+     * Colonnes : userId, nom, prénom, XP
+     */
+    @Query("SELECT u.id, u.nom, u.prenom, SUM(a.xpEarned) FROM UserDailyActivity a, User u " +
+           "WHERE u.id = a.userId AND a.activityDate >= :since " +
+           "AND NOT EXISTS (SELECT s.id FROM UserSettings s WHERE s.user = u AND s.showInLeaderboard = false) " +
+           "GROUP BY u.id, u.nom, u.prenom")
+    List<Object[]> sumXpByUserSince(@Param("since") LocalDate since);
+}
@@ -4,10 +4,13 @@ package com.example.repository;
 import com.example.model.User;
 import com.example.model.UserProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -23,6 +26,70 @@ public interface UserProgressRepository extends JpaRepository<UserProgress, Long
     @Query("SELECT COUNT(up) FROM UserProgress up")
     Long countTotalUsers();
     
+    /**
+     * Projection (userId, totalXp) pour reconstruire le classement en mémoire
+     */
+    @Query("SELECT up.user.id, up.totalXp FROM UserProgress up")
+    java.util.List<Object[]> findAllUserXp();
+    
+    /**
+     * Classement global (userId, nom, prénom, totalXp) des utilisateurs visibles
+     */
+    @Query("SELECT u.id, u.nom, u.prenom, up.totalXp FROM UserProgress up JOIN up.user u " +
+           "WHERE NOT EXISTS (SELECT s.id FROM UserSettings s WHERE s.user = u AND s.showInLeaderboard = false) " +
+           "ORDER BY up.totalXp DESC, u.id ASC")
+    java.util.List<Object[]> findLeaderboardRows();
+    
     @Query("SELECT up FROM UserProgress up ORDER BY up.totalXp DESC")
     java.util.List<UserProgress> findTopUsersByXp(org.springframework.data.domain.Pageable pageable);
-}
\ No newline at end of file
+    
+    // ============= ÉCRITURES ATOMIQUES (deltas SQL, sans lecture-modification-écriture) =============
+    
+    /**
+     * Créer la ligne de progression si absente (sans erreur si une requête concurrente l'a créée)
+     * Retourne 1 si la ligne a été créée
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_progress (user_id, total_xp, current_level, quiz_completed, " +
+                   "quiz_succeeded, total_study_time_minutes, videos_watched, average_success_rate, " +
+                   "current_streak, longest_streak, created_at, updated_at, last_activity_date) " +
+                   "VALUES (:userId, 0, 1, 0, 0, 0, 0, 0, 0, 0, :now, :now, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    
+    /**
+     * Appliquer des deltas en une seule instruction : compteurs, XP, niveau, taux de réussite et streak
+     *
+     * MySQL évalue les affectations d'un UPDATE de gauche à droite : longest_streak,
+     * current_level et average_success_rate voient les valeurs déjà mises à jour.
+     * Les modifications en attente du contexte de persistance sont écrites avant ;
+     * une entité chargée doit être rafraîchie après.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE user_progress SET " +
+                   "current_streak = CASE " +
+                   "  WHEN last_activity_date IS NULL THEN 1 " +
+                   "  WHEN DATEDIFF(:now, last_activity_date) = 0 THEN GREATEST(current_streak, 1) " +
+                   "  WHEN DATEDIFF(:now, last_activity_date) = 1 THEN current_streak + 1 " +
+                   "  ELSE 1 END, " +
+                   "longest_streak = GREATEST(longest_streak, current_streak), " +
+                   "total_xp = total_xp + :xp, " +
+                   "current_level = GREATEST(current_level, FLOOR(total_xp / 1000) + 1), " +
+                   "quiz_completed = quiz_completed + :quizzes, " +
+                   "quiz_succeeded = quiz_succeeded + :succeeded, " +
+                   "average_success_rate = CASE WHEN quiz_completed > 0 " +
+                   "  THEN quiz_succeeded * 100.0 / quiz_completed ELSE average_success_rate END, " +
+                   "total_study_time_minutes = total_study_time_minutes + :minutes, " +
+                   "videos_watched = videos_watched + :videos, " +
+                   "last_activity_date = :now, " +
+                   "updated_at = :now " +
+                   "WHERE user_id = :userId", nativeQuery = true)
+    int applyDeltas(@Param("userId") Long userId,
+                    @Param("xp") int xp,
+                    @Param("quizzes") int quizzes,
+                    @Param("succeeded") int succeeded,
+                    @Param("minutes") int minutes,
+                    @Param("videos") int videos,
+                    @Param("now") LocalDateTime now);
+}
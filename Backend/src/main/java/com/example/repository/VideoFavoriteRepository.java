@@ -2,11 +2,14 @@ package com.example.repository;
 
 import com.example.model.*;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,12 +18,31 @@ public interface VideoFavoriteRepository extends JpaRepository<VideoFavorite, Lo
     
     Optional<VideoFavorite> findByUserAndVideo(User user, Video video);
     
-    List<VideoFavorite> findByUserOrderByAddedAtDesc(User user);
+    @Query("SELECT vf FROM VideoFavorite vf JOIN FETCH vf.video WHERE vf.user = :user ORDER BY vf.addedAt DESC")
+    List<VideoFavorite> findByUserOrderByAddedAtDesc(@Param("user") User user, Pageable pageable);
+    
+    /**
+     * Favoris d'un utilisateur après un curseur (addedAt, id), plus récents d'abord
+     */
+    @Query("SELECT vf FROM VideoFavorite vf JOIN FETCH vf.video WHERE vf.user.id = :userId " +
+           "AND (vf.addedAt < :afterAddedAt OR (vf.addedAt = :afterAddedAt AND vf.id < :afterId)) " +
+           "ORDER BY vf.addedAt DESC, vf.id DESC")
+    List<VideoFavorite> findPageByUserId(@Param("userId") Long userId,
+                                         @Param("afterAddedAt") LocalDateTime afterAddedAt,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
     
     boolean existsByUserAndVideo(User user, Video video);
     
     void deleteByUserAndVideo(User user, Video video);
     
+    /**
+     * IDs des vidéos favorites parmi une page de vidéos (une seule requête IN)
+     */
+    @Query("SELECT vf.video.id FROM VideoFavorite vf WHERE vf.user.id = :userId AND vf.video.id IN :videoIds")
+    List<Long> findFavoriteVideoIds(@Param("userId") Long userId,
+                                    @Param("videoIds") Collection<Long> videoIds);
+
     @Query("SELECT COUNT(vf) FROM VideoFavorite vf WHERE vf.user.id = :userId")
     Integer countByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
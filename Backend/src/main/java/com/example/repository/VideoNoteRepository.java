@@ -2,11 +2,13 @@ package com.example.repository;
 
 import com.example.model.*;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +17,18 @@ public interface VideoNoteRepository extends JpaRepository<VideoNote, Long> {
     
     List<VideoNote> findByUserAndVideoOrderByTimestampAsc(User user, Video video);
     
-    List<VideoNote> findByUserOrderByCreatedAtDesc(User user);
+    List<VideoNote> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
+    
+    /**
+     * Notes d'un utilisateur après un curseur (createdAt, id), plus récentes d'abord
+     */
+    @Query("SELECT vn FROM VideoNote vn JOIN FETCH vn.video WHERE vn.user.id = :userId " +
+           "AND (vn.createdAt < :afterCreatedAt OR (vn.createdAt = :afterCreatedAt AND vn.id < :afterId)) " +
+           "ORDER BY vn.createdAt DESC, vn.id DESC")
+    List<VideoNote> findPageByUserId(@Param("userId") Long userId,
+                                     @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
     
     Optional<VideoNote> findByIdAndUser(Long id, User user);
     
@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,10 +21,41 @@ public interface VideoProgressRepository extends JpaRepository<VideoProgress, Lo
     
     List<VideoProgress> findByUserAndCompletedTrue(User user);
     
-    @Query("SELECT vp FROM VideoProgress vp WHERE vp.user.id = :userId " +
+    @Query("SELECT vp FROM VideoProgress vp JOIN FETCH vp.video WHERE vp.user.id = :userId " +
            "ORDER BY vp.lastWatchedAt DESC")
     List<VideoProgress> findRecentByUserId(@Param("userId") Long userId, Pageable pageable);
     
+    /**
+     * Historique de visionnage après un curseur (lastWatchedAt, id), plus récent d'abord
+     */
+    @Query("SELECT vp FROM VideoProgress vp JOIN FETCH vp.video WHERE vp.user.id = :userId " +
+           "AND (vp.lastWatchedAt < :afterWatchedAt OR (vp.lastWatchedAt = :afterWatchedAt AND vp.id < :afterId)) " +
+           "ORDER BY vp.lastWatchedAt DESC, vp.id DESC")
+    List<VideoProgress> findHistoryPageByUserId(@Param("userId") Long userId,
+                                                @Param("afterWatchedAt") LocalDateTime afterWatchedAt,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    @Query("SELECT COUNT(vp) FROM VideoProgress vp WHERE vp.user.id = :userId")
+    Integer countByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Progression d'un utilisateur pour une page de vidéos (une seule requête IN)
+     * Colonnes : videoId, progressPercentage, lastTimestamp
+     */
+    @Query("SELECT vp.video.id, vp.progressPercentage, vp.lastTimestamp FROM VideoProgress vp " +
+           "WHERE vp.user.id = :userId AND vp.video.id IN :videoIds")
+    List<Object[]> findProgressOverlay(@Param("userId") Long userId,
+                                       @Param("videoIds") Collection<Long> videoIds);
+
+    /**
+     * Vidéos déjà complétées parmi une liste de candidats (une seule requête IN)
+     */
+    @Query("SELECT vp.video.id FROM VideoProgress vp " +
+           "WHERE vp.user.id = :userId AND vp.completed = true AND vp.video.id IN :videoIds")
+    List<Long> findCompletedVideoIds(@Param("userId") Long userId,
+                                     @Param("videoIds") Collection<Long> videoIds);
+
     @Query("SELECT COUNT(vp) FROM VideoProgress vp WHERE vp.user.id = :userId AND vp.completed = true")
     Integer countCompletedByUserId(@Param("userId") Long userId);
     
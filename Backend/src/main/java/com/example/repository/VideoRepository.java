@@ -4,10 +4,12 @@ import com.example.model.Video;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -49,4 +51,81 @@ public interface VideoRepository extends JpaRepository<Video, Long> {
             @Param("category") String category,
             Pageable pageable
     );
+
+    /**
+     * Projection du catalogue actif pour le classement des recommandations
+     * Colonnes : id, category, difficulty, viewCount, favoriteCount, createdAt
+     */
+    @Query("SELECT v.id, v.category, v.difficulty, v.viewCount, v.favoriteCount, v.createdAt " +
+           "FROM Video v WHERE v.isActive = true")
+    List<Object[]> findRankingRows();
+
+    // ============= COMPTEURS (incréments atomiques, sans réécrire l'entité) =============
+
+    @Modifying
+    @Query("UPDATE Video v SET v.favoriteCount = v.favoriteCount + 1 WHERE v.id = :id")
+    int incrementFavoriteCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Video v SET v.favoriteCount = CASE WHEN v.favoriteCount > 0 THEN v.favoriteCount - 1 ELSE 0 END WHERE v.id = :id")
+    int decrementFavoriteCount(@Param("id") Long id);
+
+    // ============= PAGINATION PAR CURSEUR (clé de tri, id) =============
+    // La page suivante commence strictement après le dernier élément reçu :
+    // coût constant quelle que soit la profondeur, pas d'OFFSET ni de COUNT.
+    // Pageable ne sert qu'à fixer la limite (taille + 1 pour détecter la suite).
+
+    @Query("""
+        SELECT v FROM Video v
+        WHERE v.isActive = true
+          AND (:category IS NULL OR v.category = :category)
+          AND (:difficulty IS NULL OR v.difficulty = :difficulty)
+          AND (v.createdAt < :afterCreatedAt OR (v.createdAt = :afterCreatedAt AND v.id < :afterId))
+        ORDER BY v.createdAt DESC, v.id DESC
+    """)
+    List<Video> findRecentAfter(@Param("category") String category,
+                                @Param("difficulty") String difficulty,
+                                @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                @Param("afterId") Long afterId,
+                                Pageable pageable);
+
+    @Query("""
+        SELECT v FROM Video v
+        WHERE v.isActive = true
+          AND (:category IS NULL OR v.category = :category)
+          AND (:difficulty IS NULL OR v.difficulty = :difficulty)
+          AND (v.viewCount < :afterViewCount OR (v.viewCount = :afterViewCount AND v.id < :afterId))
+        ORDER BY v.viewCount DESC, v.id DESC
+    """)
+    List<Video> findPopularAfter(@Param("category") String category,
+                                 @Param("difficulty") String difficulty,
+                                 @Param("afterViewCount") Integer afterViewCount,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    @Query("""
+        SELECT v FROM Video v
+        WHERE v.isActive = true
+          AND (:category IS NULL OR v.category = :category)
+          AND (:difficulty IS NULL OR v.difficulty = :difficulty)
+          AND (v.duration > :afterDuration OR (v.duration = :afterDuration AND v.id > :afterId))
+        ORDER BY v.duration ASC, v.id ASC
+    """)
+    List<Video> findShortestAfter(@Param("category") String category,
+                                  @Param("difficulty") String difficulty,
+                                  @Param("afterDuration") Integer afterDuration,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    /**
+     * Total du catalogue filtré (uniquement si le client le demande)
+     */
+    @Query("""
+        SELECT COUNT(v) FROM Video v
+        WHERE v.isActive = true
+          AND (:category IS NULL OR v.category = :category)
+          AND (:difficulty IS NULL OR v.difficulty = :difficulty)
+    """)
+    long countCatalog(@Param("category") String category,
+                      @Param("difficulty") String difficulty);
 }
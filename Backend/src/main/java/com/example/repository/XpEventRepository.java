@@ -0,0 +1,25 @@
+package com.example.repository;
+
+import com.example.model.XpEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface XpEventRepository extends JpaRepository<XpEvent, Long> {
+
+    boolean existsByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Query("SELECT e FROM XpEvent e WHERE e.userId = :userId ORDER BY e.createdAt DESC, e.id DESC")
+    List<XpEvent> findRecentByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Solde recalculé depuis le grand livre (audit)
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM XpEvent e WHERE e.userId = :userId")
+    Long sumAmountByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,186 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Corrigé pré-compilé d'un quiz, construit avec son QuizSnapshot
+ *
+ * Tout est rangé dans des tableaux indexés par position de question (ids
+ * triés, recherche dichotomique) : corriger une réponse ne fait ni requête,
+ * ni boxing, ni allocation. Les QCM comparent l'id d'option aux options
+ * correctes de la question ; vrai/faux et réponse courte comparent le texte
+ * sans tenir compte de la casse ni des espaces autour.
+ */
+public final class AnswerKey {
+
+    private static final byte UNSUPPORTED = 0;
+    private static final byte CHOICE = 1;
+    private static final byte TEXT = 2;
+
+    private static final String NO_ANSWER = "Non disponible";
+
+    private final long[] questionIds;
+    private final byte[] kinds;
+    private final int[] points;
+    private final long[][] correctOptionIds;
+    private final String[][] acceptedAnswers;
+    private final String[] correctAnswerTexts;
+
+    private AnswerKey(long[] questionIds, byte[] kinds, int[] points, long[][] correctOptionIds,
+                      String[][] acceptedAnswers, String[] correctAnswerTexts) {
+        this.questionIds = questionIds;
+        this.kinds = kinds;
+        this.points = points;
+        this.correctOptionIds = correctOptionIds;
+        this.acceptedAnswers = acceptedAnswers;
+        this.correctAnswerTexts = correctAnswerTexts;
+    }
+
+    /**
+     * Compiler le corrigé à partir du contenu des questions
+     */
+    public static AnswerKey compile(List<QuizSnapshot.QuestionContent> questions) {
+        List<QuizSnapshot.QuestionContent> sorted = new ArrayList<>(questions);
+        sorted.sort((a, b) -> Long.compare(a.id(), b.id()));
+
+        int n = sorted.size();
+        long[] ids = new long[n];
+        byte[] kinds = new byte[n];
+        int[] points = new int[n];
+        long[][] correctIds = new long[n][];
+        String[][] accepted = new String[n][];
+        String[] display = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            QuizSnapshot.QuestionContent question = sorted.get(i);
+            ids[i] = question.id();
+            kinds[i] = kindOf(question.type());
+            points[i] = question.points();
+
+            List<QuizSnapshot.OptionContent> correct = question.options().stream()
+                    .filter(QuizSnapshot.OptionContent::correct)
+                    .toList();
+            correctIds[i] = correct.stream().mapToLong(QuizSnapshot.OptionContent::id).sorted().toArray();
+            accepted[i] = correct.stream()
+                    .map(QuizSnapshot.OptionContent::optionText)
+                    .filter(text -> text != null)
+                    .map(String::trim)
+                    .toArray(String[]::new);
+            display[i] = correct.isEmpty() ? NO_ANSWER : displayText(correct.get(0));
+        }
+        return new AnswerKey(ids, kinds, points, correctIds, accepted, display);
+    }
+
+    /**
+     * Position de la question dans le corrigé, -1 si elle n'appartient pas au quiz
+     */
+    public int indexOf(long questionId) {
+        int index = Arrays.binarySearch(questionIds, questionId);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * La réponse est-elle correcte ? (sans allocation)
+     */
+    public boolean isCorrect(int index, String answer) {
+        if (index < 0 || answer == null) {
+            return false;
+        }
+        switch (kinds[index]) {
+            case CHOICE: {
+                long optionId = parseId(answer);
+                return optionId >= 0 && Arrays.binarySearch(correctOptionIds[index], optionId) >= 0;
+            }
+            case TEXT: {
+                for (String accepted : acceptedAnswers[index]) {
+                    if (equalsIgnoreCaseTrimmed(accepted, answer)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Points gagnés pour une réponse (0 si incorrecte)
+     */
+    public int pointsEarned(int index, boolean correct) {
+        return correct && index >= 0 ? points[index] : 0;
+    }
+
+    /**
+     * Bonne réponse affichée après correction ("B. Paris")
+     */
+    public String correctAnswerText(int index) {
+        return index >= 0 ? correctAnswerTexts[index] : NO_ANSWER;
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private static byte kindOf(String type) {
+        if (type == null) {
+            return UNSUPPORTED;
+        }
+        if ("QCM".equalsIgnoreCase(type) || "MULTIPLE_CHOICE".equalsIgnoreCase(type)) {
+            return CHOICE;
+        }
+        if ("VRAI_FAUX".equalsIgnoreCase(type) || "TRUE_FALSE".equalsIgnoreCase(type)
+                || "REPONSE_COURTE".equalsIgnoreCase(type) || "SHORT_ANSWER".equalsIgnoreCase(type)) {
+            return TEXT;
+        }
+        return UNSUPPORTED;
+    }
+
+    private static String displayText(QuizSnapshot.OptionContent option) {
+        return option.optionLetter() != null
+                ? option.optionLetter() + ". " + option.optionText()
+                : option.optionText();
+    }
+
+    /**
+     * Id d'option décimal, -1 si la chaîne n'en est pas un (sans exception)
+     */
+    private static long parseId(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * accepted (déjà nettoyé) égal à answer sans casse ni espaces autour, sans créer de chaîne
+     */
+    private static boolean equalsIgnoreCaseTrimmed(String accepted, String answer) {
+        int start = 0;
+        int end = answer.length();
+        while (start < end && Character.isWhitespace(answer.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(answer.charAt(end - 1))) {
+            end--;
+        }
+        int length = end - start;
+        return accepted.length() == length && accepted.regionMatches(true, 0, answer, start, length);
+    }
+}
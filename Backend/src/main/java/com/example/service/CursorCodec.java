@@ -0,0 +1,77 @@
+package com.example.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Encodage des curseurs de pagination keyset : (clé de tri, id) en base64 URL-safe
+ * Le curseur est opaque pour le client
+ */
+public final class CursorCodec {
+
+    // Taille de page maximale acceptée pour les listes paginées par curseur
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Bornes de la première page (tri décroissant : tout est avant ces valeurs)
+    public static final LocalDateTime FIRST_DATE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    public static final Long FIRST_ID_DESC = Long.MAX_VALUE;
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Object sortKey, Long id) {
+        String raw = sortKey + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décoder un curseur ; null ou vide = première page
+     */
+    public static Decoded decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Decoded(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Curseur de pagination invalide");
+        }
+    }
+
+    public static int pageSize(Integer size) {
+        return size != null ? Math.max(1, Math.min(size, MAX_PAGE_SIZE)) : 20;
+    }
+
+    public static class Decoded {
+        private final String sortKey;
+        private final Long id;
+
+        Decoded(String sortKey, Long id) {
+            this.sortKey = sortKey;
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public LocalDateTime asDateTime() {
+            try {
+                return LocalDateTime.parse(sortKey);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Curseur de pagination invalide");
+            }
+        }
+
+        public Integer asInteger() {
+            try {
+                return Integer.valueOf(sortKey);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Curseur de pagination invalide");
+            }
+        }
+    }
+}
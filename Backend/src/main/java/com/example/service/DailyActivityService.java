@@ -0,0 +1,92 @@
+package com.example.service;
+
+import com.example.model.UserDailyActivity;
+import com.example.repository.UserDailyActivityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Agrégats journaliers d'activité (user_daily_activity)
+ *
+ * Chaque événement porteur d'XP ajoute ses compteurs à la ligne du jour par
+ * un upsert atomique, dans la transaction de l'appelant. Les vues
+ * hebdomadaires / mensuelles lisent 7 à 365 petites lignes au lieu de
+ * recharger les QuizResult.
+ */
+@Service
+@Slf4j
+public class DailyActivityService {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO user_daily_activity " +
+            "(user_id, activity_date, xp_earned, quiz_completed, videos_completed, study_minutes) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "xp_earned = xp_earned + VALUES(xp_earned), " +
+            "quiz_completed = quiz_completed + VALUES(quiz_completed), " +
+            "videos_completed = videos_completed + VALUES(videos_completed), " +
+            "study_minutes = study_minutes + VALUES(study_minutes)";
+
+    // Reprise de l'historique des quiz lors de la création de la table
+    private static final String BACKFILL_SQL =
+            "INSERT INTO user_daily_activity " +
+            "(user_id, activity_date, xp_earned, quiz_completed, videos_completed, study_minutes) " +
+            "SELECT user_id, DATE(completed_at), COALESCE(SUM(xp_earned), 0), COUNT(*), 0, " +
+            "COALESCE(SUM(time_spent_minutes), 0) " +
+            "FROM quiz_results GROUP BY user_id, DATE(completed_at)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserDailyActivityRepository activityRepository;
+
+    /**
+     * Initialiser la table à partir des résultats de quiz si elle est vide
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (activityRepository.count() > 0) {
+            return;
+        }
+        int rows = jdbcTemplate.update(BACKFILL_SQL);
+        log.info("📅 Agrégats journaliers initialisés depuis quiz_results: {} lignes", rows);
+    }
+
+    public void recordXp(Long userId, int xp) {
+        record(userId, xp, 0, 0, 0);
+    }
+
+    public void recordQuiz(Long userId, int xp, int studyMinutes) {
+        record(userId, xp, 1, 0, studyMinutes);
+    }
+
+    public void recordVideoCompleted(Long userId, int studyMinutes) {
+        record(userId, 0, 0, 1, studyMinutes);
+    }
+
+    /**
+     * Ajouter des compteurs à la journée en cours
+     */
+    public void record(Long userId, int xp, int quizzes, int videos, int studyMinutes) {
+        if (userId == null || (xp == 0 && quizzes == 0 && videos == 0 && studyMinutes == 0)) {
+            return;
+        }
+        jdbcTemplate.update(UPSERT_SQL, userId, Date.valueOf(LocalDate.now()), xp, quizzes, videos, studyMinutes);
+    }
+
+    /**
+     * Journées d'activité sur une période (les jours sans activité sont absents)
+     */
+    public List<UserDailyActivity> getRange(Long userId, LocalDate from, LocalDate to) {
+        return activityRepository.findRange(userId, from, to);
+    }
+}
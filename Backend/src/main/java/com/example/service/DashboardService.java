@@ -0,0 +1,209 @@
+package com.example.service;
+
+import com.example.dto.DashboardDTO;
+import com.example.model.User;
+import com.example.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Tableau de bord en un seul appel
+ *
+ * Remplace les 6 à 8 requêtes des pages d'accueil et de profil : l'utilisateur
+ * est résolu une fois, puis les sections indépendantes (progression, semaine,
+ * niveau, statistiques, vidéos récentes, recommandations, quiz) sont calculées
+ * en parallèle, chacune dans sa transaction et avec son propre délai. Une
+ * section lente ou en erreur est omise sans bloquer les autres.
+ *
+ * Parallélisme borné : le thread de la requête calcule lui-même une partie des
+ * sections et reprend celles encore en file ; seules quelques sections par
+ * requête partent sur un pool dimensionné sur le pool de connexions, à file
+ * bornée (au-delà, l'appelant exécute). Le délai court à partir du début du
+ * calcul d'une section, et une section hors délai est annulée (interruption
+ * et délai de transaction) au lieu de continuer à occuper une connexion.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    @Autowired
+    private ProgressService progressService;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${dashboard.section-timeout-ms:2000}")
+    private long sectionTimeoutMs;
+
+    @Value("${dashboard.max-parallel-sections:3}")
+    private int maxParallelSections;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ThreadPoolExecutor pool;
+
+    public DashboardService(@Value("${dashboard.parallelism:4}") int parallelism,
+                            @Value("${dashboard.queue-capacity:32}") int queueCapacity,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        // Au plus la moitié des connexions : les requêtes HTTP doivent garder les leurs
+        int threads = Math.max(1, Math.min(parallelism, connectionPoolSize / 2));
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "dashboard-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public DashboardDTO getDashboard() {
+        long start = System.currentTimeMillis();
+
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+
+        // Les sections s'exécutent sur le pool avec le contexte de sécurité de la requête
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(pool, SecurityContextHolder.getContext());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setTimeout((int) Math.max(1, (sectionTimeoutMs + 999) / 1000));
+
+        DashboardDTO dashboard = new DashboardDTO();
+        Map<String, String> errors = new TreeMap<>();
+
+        List<Section<?>> sections = List.of(
+                new Section<>("progress", progressService::getUserProgress, dashboard::setProgress, transaction),
+                new Section<>("weekly", () -> progressService.getWeeklyProgress(user), dashboard::setWeekly, transaction),
+                new Section<>("level", progressService::getLevelInfo, dashboard::setLevel, transaction),
+                new Section<>("statistics", progressService::getDetailedStatistics, dashboard::setStatistics, transaction),
+                new Section<>("recentVideos", () -> videoService.getRecentlyWatched(user), dashboard::setRecentVideos, transaction),
+                new Section<>("recommendations", () -> videoService.getRecommendations(user), dashboard::setRecommendations, transaction),
+                new Section<>("recommendedQuizzes", quizService::getRecommendedQuizzes, dashboard::setRecommendedQuizzes, transaction)
+        );
+
+        // Sections 1..n sur le pool (nombre borné par requête), les autres sur le thread de la requête
+        int offloaded = Math.min(sections.size() - 1, Math.max(0, maxParallelSections));
+        List<Section<?>> parallel = new ArrayList<>(sections.subList(1, 1 + offloaded));
+        for (Section<?> section : parallel) {
+            section.future = executor.submit(section::run);
+        }
+        sections.get(0).run();
+        for (Section<?> section : sections.subList(1 + offloaded, sections.size())) {
+            section.run();
+        }
+        // Sections encore en file : reprises par l'appelant plutôt qu'attendues
+        for (Section<?> section : parallel) {
+            section.run();
+        }
+
+        for (Section<?> section : sections) {
+            section.collect(errors);
+        }
+
+        dashboard.setErrors(errors);
+        dashboard.setPartial(!errors.isEmpty());
+        dashboard.setGeneratedAt(LocalDateTime.now());
+
+        log.info("🏠 Tableau de bord {} en {} ms{}", user.getId(), System.currentTimeMillis() - start,
+                errors.isEmpty() ? "" : " (sections manquantes: " + errors.keySet() + ")");
+        return dashboard;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    /**
+     * Une section : calculée une seule fois (par le pool ou par la requête), délai
+     * compté depuis le début du calcul, erreur consignée au lieu d'être propagée
+     */
+    private final class Section<T> {
+        final String name;
+        final Supplier<T> loader;
+        final Consumer<T> setter;
+        final TransactionTemplate transaction;
+        final AtomicBoolean claimed = new AtomicBoolean(false);
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        volatile long startedAtNanos;
+        volatile Future<?> future;
+
+        Section(String name, Supplier<T> loader, Consumer<T> setter, TransactionTemplate transaction) {
+            this.name = name;
+            this.loader = loader;
+            this.setter = setter;
+            this.transaction = transaction;
+        }
+
+        void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            startedAtNanos = System.nanoTime();
+            try {
+                result.complete(transaction.execute(status -> loader.get()));
+            } catch (Throwable error) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        void collect(Map<String, String> errors) {
+            try {
+                long startedAt = startedAtNanos;
+                long elapsed = startedAt != 0 ? System.nanoTime() - startedAt : 0;
+                long remaining = TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs) - elapsed;
+                setter.accept(result.get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                // Annuler le calcul : la connexion est rendue au lieu d'être tenue pour rien
+                Future<?> running = future;
+                if (running != null) {
+                    running.cancel(true);
+                }
+                errors.put(name, "Délai dépassé (" + sectionTimeoutMs + " ms)");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errors.put(name, "Interrompu");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                errors.put(name, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+                log.warn("⚠️ Section {} du tableau de bord en erreur: {}", name, cause.getMessage());
+            }
+        }
+    }
+}
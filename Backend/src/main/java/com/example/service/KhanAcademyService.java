@@ -25,6 +25,12 @@ public class KhanAcademyService {
     @Autowired
     private VideoRepository videoRepository;
 
+    @Autowired
+    private VideoSearchIndex searchIndex;
+
+    @Autowired
+    private VideoSuggestionIndex suggestionIndex;
+
     /**
      * Base de données complète de 100+ vidéos Khan Academy vérifiées
      * Toutes les vidéos ont été testées et fonctionnent
@@ -238,6 +244,8 @@ public class KhanAcademyService {
                         .build();
 
                 Video saved = videoRepository.save(video);
+                searchIndex.index(saved);
+                suggestionIndex.index(saved);
                 savedVideos.add(saved);
                 log.debug("✅ Vidéo importée: {} ({})", vd.title, vd.youtubeId);
 
@@ -0,0 +1,208 @@
+package com.example.service;
+
+import com.example.dto.LeaderboardDTO;
+import com.example.dto.LeaderboardEntryDTO;
+import com.example.model.User;
+import com.example.repository.QuizResultRepository;
+import com.example.repository.UserDailyActivityRepository;
+import com.example.repository.UserProgressRepository;
+import com.example.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Classements (global, hebdomadaire, par catégorie) servis depuis des snapshots
+ *
+ * Les classements sont reconstruits périodiquement par quelques requêtes
+ * agrégées ; les utilisateurs ayant désactivé showInLeaderboard sont écartés
+ * dès la construction. La lecture ne fait que découper des listes immuables,
+ * la position de l'utilisateur est retrouvée par table de hachage.
+ */
+@Service
+@Slf4j
+public class LeaderboardService {
+
+    public static final String GLOBAL = "GLOBAL";
+    public static final String WEEKLY = "WEEKLY";
+    public static final String CATEGORY = "CATEGORY";
+
+    private static final int MAX_TOP = 100;
+    private static final int AROUND_RADIUS = 2;
+
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+
+    @Autowired
+    private QuizResultRepository quizResultRepository;
+
+    @Autowired
+    private UserDailyActivityRepository dailyActivityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(
+            Board.EMPTY, Board.EMPTY, Collections.emptyMap(), LocalDateTime.now());
+
+    /**
+     * Reconstruire tous les classements
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${leaderboard.refresh-interval-ms:60000}",
+            fixedDelayString = "${leaderboard.refresh-interval-ms:60000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        List<ScoreRow> globalRows = new ArrayList<>();
+        for (Object[] row : userProgressRepository.findLeaderboardRows()) {
+            globalRows.add(new ScoreRow((Long) row[0], displayName(row[1], row[2]), toLong(row[3])));
+        }
+
+        // Semaine en cours : toutes les sources d'XP, depuis les agrégats journaliers
+        LocalDate weekStart = LocalDate.now().with(DayOfWeek.MONDAY);
+        List<ScoreRow> weeklyRows = new ArrayList<>();
+        for (Object[] row : dailyActivityRepository.sumXpByUserSince(weekStart)) {
+            weeklyRows.add(new ScoreRow((Long) row[0], displayName(row[1], row[2]), toLong(row[3])));
+        }
+
+        Map<String, List<ScoreRow>> categoryRows = new HashMap<>();
+        for (Object[] row : quizResultRepository.sumXpByUserAndCategory()) {
+            if (row[3] == null) {
+                continue;
+            }
+            categoryRows.computeIfAbsent((String) row[3], c -> new ArrayList<>())
+                    .add(new ScoreRow((Long) row[0], displayName(row[1], row[2]), toLong(row[4])));
+        }
+
+        Map<String, Board> categories = new HashMap<>();
+        categoryRows.forEach((category, rows) -> categories.put(category, Board.of(rows)));
+
+        snapshot = new Snapshot(Board.of(globalRows), Board.of(weeklyRows), categories, LocalDateTime.now());
+        log.info("🏅 Classements reconstruits: {} joueurs, {} catégories en {} ms",
+                globalRows.size(), categories.size(), System.currentTimeMillis() - start);
+    }
+
+    public LeaderboardDTO getGlobal(Integer limit) {
+        Snapshot current = snapshot;
+        return toDTO(GLOBAL, null, current.global, limit, current.generatedAt);
+    }
+
+    public LeaderboardDTO getWeekly(Integer limit) {
+        Snapshot current = snapshot;
+        return toDTO(WEEKLY, null, current.weekly, limit, current.generatedAt);
+    }
+
+    public LeaderboardDTO getByCategory(String category, Integer limit) {
+        Snapshot current = snapshot;
+        Board board = current.categories.getOrDefault(category, Board.EMPTY);
+        return toDTO(CATEGORY, category, board, limit, current.generatedAt);
+    }
+
+    public List<String> getCategories() {
+        return new ArrayList<>(new TreeSet<>(snapshot.categories.keySet()));
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private LeaderboardDTO toDTO(String type, String category, Board board, Integer limit, LocalDateTime generatedAt) {
+        int top = limit != null ? Math.max(1, Math.min(limit, MAX_TOP)) : 10;
+        Long userId = getCurrentUserId();
+
+        // Position de l'utilisateur en O(1), tranche autour de lui sans parcours
+        Integer position = userId != null ? board.positionByUser.get(userId) : null;
+        List<LeaderboardEntryDTO> around = Collections.emptyList();
+        if (position != null) {
+            int from = Math.max(0, position - AROUND_RADIUS);
+            int to = Math.min(board.entries.size(), position + AROUND_RADIUS + 1);
+            around = board.entries.subList(from, to);
+        }
+
+        return LeaderboardDTO.builder()
+                .board(type)
+                .category(category)
+                .totalEntries(board.entries.size())
+                .top(board.entries.subList(0, Math.min(top, board.entries.size())))
+                .me(position != null ? board.entries.get(position) : null)
+                .aroundMe(around)
+                .generatedAt(generatedAt)
+                .build();
+    }
+
+    private Long getCurrentUserId() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElse(null);
+    }
+
+    private static String displayName(Object nom, Object prenom) {
+        String first = prenom != null ? prenom.toString() : "";
+        String last = nom != null ? nom.toString() : "";
+        return (first + " " + last).trim();
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private record ScoreRow(Long userId, String displayName, long score) {
+    }
+
+    /**
+     * Classement figé : entrées triées + index de position par utilisateur
+     */
+    private static class Board {
+        static final Board EMPTY = new Board(List.of(), Map.of());
+
+        final List<LeaderboardEntryDTO> entries;
+        final Map<Long, Integer> positionByUser;
+
+        Board(List<LeaderboardEntryDTO> entries, Map<Long, Integer> positionByUser) {
+            this.entries = entries;
+            this.positionByUser = positionByUser;
+        }
+
+        static Board of(List<ScoreRow> rows) {
+            rows.sort((a, b) -> {
+                int cmp = Long.compare(b.score, a.score);
+                return cmp != 0 ? cmp : Long.compare(a.userId, b.userId);
+            });
+
+            List<LeaderboardEntryDTO> entries = new ArrayList<>(rows.size());
+            Map<Long, Integer> positions = new HashMap<>(rows.size() * 2);
+            int rank = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                ScoreRow row = rows.get(i);
+                if (i == 0 || row.score != rows.get(i - 1).score) {
+                    rank = i + 1;
+                }
+                entries.add(LeaderboardEntryDTO.builder()
+                        .rank(rank)
+                        .userId(row.userId)
+                        .displayName(row.displayName)
+                        .score(row.score)
+                        .build());
+                positions.put(row.userId, i);
+            }
+            return new Board(Collections.unmodifiableList(entries), positions);
+        }
+    }
+
+    private record Snapshot(Board global, Board weekly, Map<String, Board> categories, LocalDateTime generatedAt) {
+    }
+}
@@ -5,6 +5,7 @@ import com.example.dto.Profile.ProfileResponse;
 import com.example.dto.Profile.UpdateProfileRequest;
 import com.example.model.User;
 import com.example.repository.UserRepository;
+import com.example.service.ProgressSnapshotCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,6 +24,9 @@ public class ProfileService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ProgressSnapshotCache progressCache;
+
     /**
      * Récupérer le profil de l'utilisateur connecté
      */
@@ -44,6 +48,9 @@ public class ProfileService {
             throw new RuntimeException("Cet email est déjà utilisé par un autre compte");
         }
 
+        // Nom et email figurent dans l'instantané de progression en cache
+        progressCache.invalidateUser(user.getEmail(), user.getId());
+
         // Mettre à jour les informations
         user.setNom(request.getNom());
         user.setPrenom(request.getPrenom());
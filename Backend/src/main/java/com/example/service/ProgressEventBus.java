@@ -0,0 +1,316 @@
+package com.example.service;
+
+import com.example.event.ProgressEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bus d'événements en mémoire pour les effets de bord de progression
+ *
+ * Les requêtes (quiz, vidéo, note, favori) ne font que leur écriture principale
+ * et publient un événement ; il est mis en file après le commit et appliqué
+ * par des workers dans sa propre transaction. Un utilisateur est toujours
+ * affecté à la même file (hachage de l'id) : ses événements sont appliqués
+ * dans l'ordre de publication.
+ *
+ * Files bornées : quand une file est pleine, le producteur attend qu'une place
+ * se libère (contre-pression) ; un événement n'est jamais appliqué hors de sa
+ * file, car streak et date de dernière activité dépendent de l'ordre.
+ * À l'arrêt, les files sont vidées avant la fermeture de la base ; un événement
+ * publié ensuite est appliqué par l'appelant une fois sa file vide.
+ */
+@Service
+@Slf4j
+public class ProgressEventBus {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 50;
+
+    @Autowired
+    private ProgressEventHandler handler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${progress.events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${progress.events.lanes:4}")
+    private int laneCount;
+
+    @Value("${progress.events.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${progress.events.offer-timeout-ms:200}")
+    private long offerTimeoutMs;
+
+    @Value("${progress.events.drain-timeout-ms:10000}")
+    private long drainTimeoutMs;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<Lane> lanes = new ArrayList<>();
+    private volatile boolean accepting = false;
+
+    // Métriques de contre-pression
+    private final LongAdder published = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder producerWaits = new LongAdder();
+    private final LongAdder appliedAfterShutdown = new LongAdder();
+    private final LongAdder totalLagMs = new LongAdder();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (!enabled) {
+            log.info("📨 Bus d'événements de progression désactivé: application synchrone");
+            return;
+        }
+        for (int i = 0; i < Math.max(1, laneCount); i++) {
+            Lane lane = new Lane(i, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)));
+            lanes.add(lane);
+            lane.worker.start();
+        }
+        accepting = true;
+        log.info("📨 Bus d'événements de progression démarré: {} files de {} événements", lanes.size(), queueCapacity);
+    }
+
+    /**
+     * Publier un événement ; dans une transaction, mis en file seulement après le commit
+     */
+    public void publish(ProgressEvent event) {
+        published.increment();
+
+        if (!enabled) {
+            // Mode synchrone : appliqué dans la transaction de l'appelant, comme avant le bus
+            handler.handle(event);
+            processed.increment();
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Vider les files à l'arrêt (les nouveaux événements sont alors appliqués par l'appelant)
+     */
+    @PreDestroy
+    public void drain() {
+        accepting = false;
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+
+        for (Lane lane : lanes) {
+            lane.stopping = true;
+            lane.worker.interrupt();
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Événements mis en file pendant l'arrêt du worker : appliqués ici, dans l'ordre
+        for (Lane lane : lanes) {
+            if (!lane.worker.isAlive()) {
+                Envelope envelope;
+                while ((envelope = lane.queue.poll()) != null) {
+                    process(envelope.event());
+                }
+            }
+        }
+
+        int remaining = lanes.stream().mapToInt(lane -> lane.queue.size()).sum();
+        if (remaining > 0) {
+            log.warn("⚠️ Arrêt: {} événements de progression non appliqués", remaining);
+        } else {
+            log.info("📨 Bus d'événements vidé: {} événements appliqués", processed.sum());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        List<Integer> depths = new ArrayList<>();
+        for (Lane lane : lanes) {
+            depths.add(lane.queue.size());
+        }
+        long done = processed.sum();
+
+        metrics.put("enabled", enabled);
+        metrics.put("lanes", lanes.size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("queued", depths.stream().mapToInt(Integer::intValue).sum());
+        metrics.put("queuedByLane", depths);
+        metrics.put("published", published.sum());
+        metrics.put("processed", done);
+        metrics.put("failed", failed.sum());
+        metrics.put("retried", retried.sum());
+        metrics.put("producerWaits", producerWaits.sum());
+        metrics.put("appliedAfterShutdown", appliedAfterShutdown.sum());
+        metrics.put("avgLagMs", done > 0 ? totalLagMs.sum() / done : 0);
+        metrics.put("maxLagMs", maxLagMs.get());
+        return metrics;
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private void dispatch(ProgressEvent event) {
+        Lane lane = lanes.get(Math.floorMod(event.userId().hashCode(), lanes.size()));
+        if (!accepting) {
+            runAfterShutdown(lane, event);
+            return;
+        }
+
+        Envelope envelope = new Envelope(event, System.nanoTime());
+        if (lane.queue.offer(envelope)) {
+            return;
+        }
+
+        // File pleine : le producteur attend une place (contre-pression), sans jamais
+        // doubler les événements déjà en file pour cet utilisateur
+        producerWaits.increment();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (lane.queue.offer(envelope, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    // L'écriture principale est déjà validée : l'événement ne doit pas être perdu
+                    interrupted = true;
+                }
+                if (!accepting) {
+                    runAfterShutdown(lane, event);
+                    return;
+                }
+                log.warn("⚠️ File d'événements {} pleine, producteur en attente", lane.index);
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Arrêt en cours : attendre que la file de l'utilisateur soit vidée, puis appliquer
+     */
+    private void runAfterShutdown(Lane lane, ProgressEvent event) {
+        if (Thread.currentThread() != lane.worker) {
+            try {
+                lane.worker.join(drainTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        appliedAfterShutdown.increment();
+        process(event);
+    }
+
+    /**
+     * Appliquer un événement dans sa propre transaction, avec quelques tentatives
+     * (verrous, interblocages) ; l'idempotence du grand livre rend la reprise sûre
+     */
+    private void process(ProgressEvent event) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> handler.handle(event));
+                processed.increment();
+                return;
+            } catch (Exception e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    failed.increment();
+                    log.error("❌ Événement de progression abandonné {}: {}", event, e.getMessage(), e);
+                    return;
+                }
+                retried.increment();
+                log.warn("🔁 Nouvelle tentative ({}) pour {}: {}", attempt, event, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void recordLag(long enqueuedAtNanos) {
+        long lagMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAtNanos);
+        totalLagMs.add(lagMs);
+        maxLagMs.accumulateAndGet(lagMs, Math::max);
+    }
+
+    private record Envelope(ProgressEvent event, long enqueuedAtNanos) {
+    }
+
+    /**
+     * File bornée + worker dédié : un seul consommateur garantit l'ordre par utilisateur
+     */
+    private class Lane {
+        final int index;
+        final BlockingQueue<Envelope> queue;
+        final Thread worker;
+        volatile boolean stopping = false;
+
+        Lane(int index, BlockingQueue<Envelope> queue) {
+            this.index = index;
+            this.queue = queue;
+            this.worker = new Thread(this::run, "progress-events-" + index);
+            this.worker.setDaemon(true);
+        }
+
+        void run() {
+            while (true) {
+                Envelope envelope;
+                try {
+                    envelope = stopping ? queue.poll() : queue.take();
+                } catch (InterruptedException e) {
+                    // Réveil d'arrêt : on termine ce qui reste en file
+                    continue;
+                }
+                if (envelope == null) {
+                    return;
+                }
+                recordLag(envelope.enqueuedAtNanos());
+                // Le drapeau d'interruption ne doit pas faire échouer les requêtes JDBC
+                Thread.interrupted();
+                process(envelope.event());
+            }
+        }
+    }
+}
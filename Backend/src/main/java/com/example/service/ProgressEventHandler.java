@@ -0,0 +1,54 @@
+package com.example.service;
+
+import com.example.event.ProgressEvent;
+import com.example.event.ProgressEvent.FavoriteAdded;
+import com.example.event.ProgressEvent.NoteAdded;
+import com.example.event.ProgressEvent.QuizCompleted;
+import com.example.event.ProgressEvent.VideoCompleted;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Application d'un événement de progression (appelé par ProgressEventBus)
+ *
+ * Chaque attribution d'XP porte une clé déterministe : rejouer un événement
+ * après un échec ne crédite jamais deux fois (voir XpLedgerService).
+ */
+@Component
+public class ProgressEventHandler {
+
+    @Autowired
+    private ProgressService progressService;
+
+    public void handle(ProgressEvent event) {
+        if (event instanceof QuizCompleted quiz) {
+            progressService.applyQuizCompleted(quiz.quizResultId());
+
+        } else if (event instanceof VideoCompleted video) {
+            progressService.recordVideoCompleted(video.userId(), video.watchMinutes());
+            progressService.awardXp(video.userId(), video.xp(),
+                    "Vidéo complétée: " + video.videoTitle(),
+                    "VIDEO_COMPLETED",
+                    "VIDEO_COMPLETED:" + video.videoId());
+            if (video.milestoneXp() > 0) {
+                progressService.awardXp(video.userId(), video.milestoneXp(),
+                        String.format("Milestone: %d vidéos complétées!", video.completedCount()),
+                        "VIDEO_MILESTONE",
+                        "VIDEO_MILESTONE:" + video.completedCount());
+            }
+
+        } else if (event instanceof NoteAdded note) {
+            progressService.awardXp(note.userId(), note.xp(),
+                    "Note ajoutée sur vidéo: " + note.videoTitle(),
+                    "NOTE_ADDED",
+                    "NOTE_ADDED:" + note.idempotencyKey());
+
+        } else if (event instanceof FavoriteAdded favorite) {
+            // Retirer puis remettre en favori ne redonne pas d'XP
+            progressService.awardXp(favorite.userId(), favorite.xp(),
+                    "Vidéo ajoutée aux favoris: " + favorite.videoTitle(),
+                    "FAVORITE_ADDED",
+                    "FAVORITE_ADDED:" + favorite.videoId());
+        }
+    }
+}
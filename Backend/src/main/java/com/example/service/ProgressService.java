@@ -4,9 +4,15 @@ import com.example.dto.*;
 import com.example.model.User;
 import com.example.model.UserProgress;
 import com.example.model.QuizResult;
+import com.example.model.UserDailyActivity;
 import com.example.repository.UserProgressRepository;
 import com.example.repository.QuizResultRepository;
 import com.example.repository.UserRepository;
+import com.example.repository.XpEventRepository;
+import com.example.service.ProgressSnapshotCache.ProgressSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,14 +20,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class ProgressService {
 
     @Autowired
@@ -33,6 +42,24 @@ public class ProgressService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private XpRankService xpRankService;
+
+    @Autowired
+    private DailyActivityService dailyActivityService;
+
+    @Autowired
+    private XpLedgerService xpLedgerService;
+
+    @Autowired
+    private XpEventRepository xpEventRepository;
+
+    @Autowired
+    private ProgressSnapshotCache progressCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * Récupérer ou créer le progrès utilisateur
      */
@@ -40,35 +67,41 @@ public class ProgressService {
     public UserProgress getOrCreateUserProgress(User user) {
         return userProgressRepository.findByUser(user)
                 .orElseGet(() -> {
-                    UserProgress progress = UserProgress.builder()
-                            .user(user)
-                            .totalXp(0)
-                            .currentLevel(1)
-                            .quizCompleted(0)
-                            .quizSucceeded(0)
-                            .totalStudyTimeMinutes(0)
-                            .videosWatched(0)
-                            .averageSuccessRate(0.0)
-                            .currentStreak(0)
-                            .longestStreak(0)
-                            .lastActivityDate(LocalDateTime.now())
-                            .build();
-                    return userProgressRepository.save(progress);
+                    ensureProgressRow(user.getId());
+                    return userProgressRepository.findByUser(user)
+                            .orElseThrow(() -> new RuntimeException("Progression introuvable"));
                 });
     }
 
+    /**
+     * Créer la ligne de progression si absente ; sûr face aux créations concurrentes
+     */
+    private void ensureProgressRow(Long userId) {
+        if (insertProgressRow(userId)) {
+            progressCache.invalidate(userId);
+        }
+    }
+
+    private boolean insertProgressRow(Long userId) {
+        if (userProgressRepository.insertIfAbsent(userId, LocalDateTime.now()) > 0) {
+            xpRankService.recordXp(userId, 0);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Obtenir les statistiques complètes de l'utilisateur
      */
     public UserProgressDTO getUserProgress() {
-        User user = getCurrentUser();
-        UserProgress progress = getOrCreateUserProgress(user);
+        ProgressSnapshot snapshot = getCurrentSnapshot();
+        UserProgress progress = snapshot.progress();
 
         return UserProgressDTO.builder()
-                .userId(user.getId())
-                .userName(user.getNom() + " " + user.getPrenom())
-                .userEmail(user.getEmail())
-                .niveau(user.getNiveau())
+                .userId(snapshot.userId())
+                .userName(snapshot.nom() + " " + snapshot.prenom())
+                .userEmail(snapshot.email())
+                .niveau(snapshot.niveau())
                 .totalXp(progress.getTotalXp())
                 .currentLevel(progress.getCurrentLevel())
                 .quizCompleted(progress.getQuizCompleted())
@@ -93,14 +126,26 @@ public class ProgressService {
      * Obtenir les statistiques détaillées
      */
     public StatisticsDTO getDetailedStatistics() {
-        User user = getCurrentUser();
-        UserProgress progress = getOrCreateUserProgress(user);
-
-        List<StatisticsDTO.SubjectProgress> subjectProgress = getSubjectProgress(user.getId());
-        List<StatisticsDTO.RecentActivity> recentActivities = getRecentActivities(user.getId());
-
-        Long rank = userProgressRepository.countUsersWithMoreXp(progress.getTotalXp()) + 1;
-        Long totalUsers = userProgressRepository.countTotalUsers();
+        ProgressSnapshot snapshot = getCurrentSnapshot();
+        UserProgress progress = snapshot.progress();
+
+        // Matières et activité récente : recalculées seulement après un nouveau quiz
+        ProgressSnapshotCache.StatisticsParts parts = progressCache.statistics(snapshot.userId(),
+                userId -> new ProgressSnapshotCache.StatisticsParts(
+                        getSubjectProgress(userId), getRecentActivities(userId)));
+        List<StatisticsDTO.SubjectProgress> subjectProgress = parts.subjects();
+        List<StatisticsDTO.RecentActivity> recentActivities = parts.recentActivities();
+
+        // 🏆 Rang en O(log n) depuis le classement en mémoire (requêtes COUNT tant qu'il n'est pas prêt)
+        Long rank;
+        Long totalUsers;
+        if (xpRankService.isReady()) {
+            rank = xpRankService.rankOf(progress.getTotalXp());
+            totalUsers = xpRankService.totalUsers();
+        } else {
+            rank = userProgressRepository.countUsersWithMoreXp(progress.getTotalXp()) + 1;
+            totalUsers = userProgressRepository.countTotalUsers();
+        }
 
         List<StatisticsDTO.Goal> goals = generateGoals(progress);
 
@@ -124,8 +169,7 @@ public class ProgressService {
      * Obtenir les informations de niveau
      */
     public LevelInfoDTO getLevelInfo() {
-        User user = getCurrentUser();
-        UserProgress progress = getOrCreateUserProgress(user);
+        UserProgress progress = getCurrentSnapshot().progress();
 
         return LevelInfoDTO.builder()
                 .currentLevel(progress.getCurrentLevel())
@@ -239,133 +283,34 @@ public class ProgressService {
     // }
     /**
      * Obtenir la progression hebdomadaire
-     * 🎯 VERSION AVEC DEBUG ULTRA-DÉTAILLÉ
+     * Lue depuis les agrégats journaliers (14 lignes au plus) : quiz, vidéos et autres XP
      */
     public WeeklyProgressDTO getWeeklyProgress() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
-
-        UserProgress progress = getOrCreateUserProgress(user);
-
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime currentWeekStart = now.with(DayOfWeek.MONDAY).truncatedTo(ChronoUnit.DAYS);
-        LocalDateTime currentWeekEnd = currentWeekStart.plusDays(7);
-        LocalDateTime lastWeekStart = currentWeekStart.minusWeeks(1);
-        LocalDateTime lastWeekEnd = currentWeekStart;
-
-        System.out.println("═══════════════════════════════════════════");
-        System.out.println("📊 WEEKLY PROGRESS - DEBUG ULTRA-DÉTAILLÉ");
-        System.out.println("═══════════════════════════════════════════");
-        System.out.println("👤 User ID: " + user.getId());
-        System.out.println("👤 Email: " + user.getEmail());
-        System.out.println("📅 Maintenant: " + now);
-        System.out.println("📅 Semaine courante: " + currentWeekStart + " → " + currentWeekEnd);
-        System.out.println("📅 Semaine dernière: " + lastWeekStart + " → " + lastWeekEnd);
-        System.out.println("───────────────────────────────────────────");
-
-        // 🔍 ÉTAPE 1: Compter TOUS les résultats de l'utilisateur
-        Integer totalResults = quizResultRepository.countByUserId(user.getId());
-        System.out.println("📊 Total QuizResults pour cet utilisateur: " + totalResults);
-
-        if (totalResults == null || totalResults == 0) {
-            System.out.println("⚠️ AUCUN QUIZ RESULT TROUVÉ !");
-            System.out.println("═══════════════════════════════════════════");
-            return WeeklyProgressDTO.builder()
-                    .currentWeekXp(0)
-                    .lastWeekXp(0)
-                    .changePercentage(0.0)
-                    .dailyProgress(createEmptyDailyProgress(currentWeekStart))
-                    .build();
-        }
-
-        // 🔍 ÉTAPE 2: Récupérer le dernier résultat pour vérifier
-        List<QuizResult> latestResults = quizResultRepository.findLatestByUserId(
-                user.getId(),
-                PageRequest.of(0, 1)
-        );
-
-        if (!latestResults.isEmpty()) {
-            QuizResult latest = latestResults.get(0);
-            System.out.println("📌 DERNIER QuizResult:");
-            System.out.println("   - ID: " + latest.getId());
-            System.out.println("   - Quiz: " + latest.getQuiz().getTitle());
-            System.out.println("   - Score: " + latest.getScore() + "%");
-            System.out.println("   - XP Gagné: " + latest.getXpEarned());
-            System.out.println("   - Completed At: " + latest.getCompletedAt());
-
-            boolean isInCurrentWeek = latest.getCompletedAt() != null &&
-                    !latest.getCompletedAt().isBefore(currentWeekStart) &&
-                    latest.getCompletedAt().isBefore(currentWeekEnd);
-
-            System.out.println("   - Dans semaine courante ? " + isInCurrentWeek);
-
-            if (!isInCurrentWeek) {
-                System.out.println("⚠️ Le dernier quiz n'est PAS dans la semaine courante !");
-            }
-        }
-        System.out.println("───────────────────────────────────────────");
-
-        // 🔍 ÉTAPE 3: Compter les résultats dans la semaine courante
-        Long countCurrentWeek = quizResultRepository.countByUserIdAndDateRange(
-                user.getId(), currentWeekStart, currentWeekEnd
-        );
-        System.out.println("🔢 Nombre de résultats semaine courante (COUNT): " + countCurrentWeek);
-
-        // 🔍 ÉTAPE 4: Récupérer TOUS les résultats de la semaine courante
-        List<QuizResult> currentWeekResults = quizResultRepository.findByUserIdAndDateRange(
-                user.getId(), currentWeekStart, currentWeekEnd
-        );
-
-        System.out.println("📊 Résultats semaine courante (LISTE): " + currentWeekResults.size());
+        return getWeeklyProgress(getCurrentUser());
+    }
 
-        if (currentWeekResults.isEmpty()) {
-            System.out.println("⚠️ LA LISTE EST VIDE ! Vérifions pourquoi...");
+    public WeeklyProgressDTO getWeeklyProgress(User user) {
 
-            // Test avec une méthode alternative
-            List<QuizResult> allResultsFromMonday = quizResultRepository.findByUserIdFromDate(
-                    user.getId(), currentWeekStart
-            );
-            System.out.println("📊 Résultats depuis lundi (méthode alternative): " + allResultsFromMonday.size());
+        LocalDate currentWeekStart = LocalDate.now().with(DayOfWeek.MONDAY);
+        LocalDate lastWeekStart = currentWeekStart.minusWeeks(1);
 
-            if (!allResultsFromMonday.isEmpty()) {
-                System.out.println("✅ TROUVÉ avec méthode alternative ! Utilisons celle-ci.");
-                currentWeekResults = allResultsFromMonday;
-            }
+        Map<LocalDate, UserDailyActivity> byDate = new HashMap<>();
+        for (UserDailyActivity day : dailyActivityService.getRange(
+                user.getId(), lastWeekStart, currentWeekStart.plusDays(6))) {
+            byDate.put(day.getActivityDate(), day);
         }
 
-        // Afficher les détails de chaque résultat
-        for (int i = 0; i < currentWeekResults.size(); i++) {
-            QuizResult qr = currentWeekResults.get(i);
-            System.out.println("   [" + (i+1) + "] Quiz: " + qr.getQuiz().getTitle());
-            System.out.println("       - Score: " + qr.getScore() + "%");
-            System.out.println("       - XP: " + qr.getXpEarned());
-            System.out.println("       - Date: " + qr.getCompletedAt());
-            System.out.println("       - User ID: " + qr.getUser().getId());
+        int lastWeekXp = 0;
+        for (int i = 0; i < 7; i++) {
+            UserDailyActivity day = byDate.get(lastWeekStart.plusDays(i));
+            lastWeekXp += day != null ? day.getXpEarned() : 0;
         }
-        System.out.println("───────────────────────────────────────────");
-
-        // 🔍 ÉTAPE 5: Récupérer les résultats de la semaine dernière
-        List<QuizResult> lastWeekResults = quizResultRepository.findByUserIdAndDateRange(
-                user.getId(), lastWeekStart, lastWeekEnd
-        );
 
-        System.out.println("📊 Résultats semaine dernière: " + lastWeekResults.size());
-        System.out.println("───────────────────────────────────────────");
-
-        // 🔍 ÉTAPE 6: Calculer les XP
-        int currentWeekXp = currentWeekResults.stream()
-                .mapToInt(qr -> qr.getXpEarned() != null ? qr.getXpEarned() : 0)
-                .sum();
-
-        int lastWeekXp = lastWeekResults.stream()
-                .mapToInt(qr -> qr.getXpEarned() != null ? qr.getXpEarned() : 0)
+        List<WeeklyProgressDTO.DailyProgress> dailyProgress = buildDailyProgress(byDate, currentWeekStart, 7);
+        int currentWeekXp = dailyProgress.stream()
+                .mapToInt(WeeklyProgressDTO.DailyProgress::getXpEarned)
                 .sum();
 
-        System.out.println("💰 XP semaine courante (calculé): " + currentWeekXp);
-        System.out.println("💰 XP semaine dernière (calculé): " + lastWeekXp);
-        System.out.println("💰 Total XP (UserProgress): " + progress.getTotalXp());
-
         double changePercentage = 0.0;
         if (lastWeekXp > 0) {
             changePercentage = ((double) (currentWeekXp - lastWeekXp) / lastWeekXp) * 100;
@@ -373,72 +318,8 @@ public class ProgressService {
             changePercentage = 100.0;
         }
 
-        System.out.println("📈 Changement: " + String.format("%.1f", changePercentage) + "%");
-        System.out.println("───────────────────────────────────────────");
-
-        // 🔍 ÉTAPE 7: Construire la progression journalière
-        List<WeeklyProgressDTO.DailyProgress> dailyProgress = new ArrayList<>();
-        String[] dayLabels = {"Lun", "Mar", "Mer", "Jeu", "Ven", "Sam", "Dim"};
-
-        System.out.println("📅 PROGRESSION JOURNALIÈRE:");
-        for (int i = 0; i < 7; i++) {
-            LocalDateTime dayStart = currentWeekStart.plusDays(i);
-            LocalDateTime dayEnd = dayStart.plusDays(1);
-
-            int dayXp = currentWeekResults.stream()
-                    .filter(qr -> qr.getCompletedAt() != null &&
-                            !qr.getCompletedAt().isBefore(dayStart) &&
-                            qr.getCompletedAt().isBefore(dayEnd))
-                    .mapToInt(qr -> qr.getXpEarned() != null ? qr.getXpEarned() : 0)
-                    .sum();
-
-            int quizCount = (int) currentWeekResults.stream()
-                    .filter(qr -> qr.getCompletedAt() != null &&
-                            !qr.getCompletedAt().isBefore(dayStart) &&
-                            qr.getCompletedAt().isBefore(dayEnd))
-                    .count();
-
-            int studyTime = currentWeekResults.stream()
-                    .filter(qr -> qr.getCompletedAt() != null &&
-                            !qr.getCompletedAt().isBefore(dayStart) &&
-                            qr.getCompletedAt().isBefore(dayEnd))
-                    .mapToInt(qr -> qr.getTimeSpentMinutes() != null ? qr.getTimeSpentMinutes() : 0)
-                    .sum();
-
-            boolean hasActivity = dayXp > 0;
-
-            String activityIndicator = hasActivity ? "✅" : "⭕";
-            System.out.println("   " + activityIndicator + " " + dayLabels[i] + " (" +
-                    dayStart.toLocalDate() + "): " +
-                    dayXp + " XP, " + quizCount + " quiz, " +
-                    studyTime + " min");
-
-            WeeklyProgressDTO.DailyProgress dayProgress = WeeklyProgressDTO.DailyProgress.builder()
-                    .day(dayLabels[i])
-                    .fullDate(dayStart.format(DateTimeFormatter.ISO_DATE))
-                    .xpEarned(dayXp)
-                    .quizCompleted(quizCount)
-                    .studyTimeMinutes(studyTime)
-                    .hasActivity(hasActivity)
-                    .build();
-
-            dailyProgress.add(dayProgress);
-        }
-
-        int totalFromDaily = dailyProgress.stream()
-                .mapToInt(WeeklyProgressDTO.DailyProgress::getXpEarned)
-                .sum();
-
-        System.out.println("───────────────────────────────────────────");
-        System.out.println("🔢 Total XP (somme daily): " + totalFromDaily);
-
-        if (totalFromDaily != currentWeekXp) {
-            System.out.println("⚠️ INCOHÉRENCE ! Total daily ≠ currentWeekXp");
-        } else {
-            System.out.println("✅ Cohérence vérifiée");
-        }
-
-        System.out.println("═══════════════════════════════════════════");
+        log.debug("📊 Progression hebdomadaire - User {}: {} XP cette semaine, {} XP la semaine dernière",
+                user.getId(), currentWeekXp, lastWeekXp);
 
         return WeeklyProgressDTO.builder()
                 .currentWeekXp(currentWeekXp)
@@ -449,26 +330,48 @@ public class ProgressService {
     }
 
     /**
-     * Créer une progression journalière vide
+     * Activité jour par jour sur les N derniers jours (vues mensuelle / annuelle)
+     */
+    public List<WeeklyProgressDTO.DailyProgress> getDailyActivity(Integer days) {
+        User user = getCurrentUser();
+        int span = days != null ? Math.max(1, Math.min(days, 365)) : 30;
+
+        LocalDate from = LocalDate.now().minusDays(span - 1);
+        Map<LocalDate, UserDailyActivity> byDate = new HashMap<>();
+        for (UserDailyActivity day : dailyActivityService.getRange(user.getId(), from, LocalDate.now())) {
+            byDate.put(day.getActivityDate(), day);
+        }
+        return buildDailyProgress(byDate, from, span);
+    }
+
+    /**
+     * Une entrée par jour à partir de start, jours sans activité à zéro
      */
-    private List<WeeklyProgressDTO.DailyProgress> createEmptyDailyProgress(LocalDateTime weekStart) {
-        List<WeeklyProgressDTO.DailyProgress> dailyProgress = new ArrayList<>();
+    private List<WeeklyProgressDTO.DailyProgress> buildDailyProgress(
+            Map<LocalDate, UserDailyActivity> byDate, LocalDate start, int days) {
         String[] dayLabels = {"Lun", "Mar", "Mer", "Jeu", "Ven", "Sam", "Dim"};
+        List<WeeklyProgressDTO.DailyProgress> dailyProgress = new ArrayList<>(days);
+
+        for (int i = 0; i < days; i++) {
+            LocalDate date = start.plusDays(i);
+            UserDailyActivity day = byDate.get(date);
+            int xp = day != null ? day.getXpEarned() : 0;
+            int quizzes = day != null ? day.getQuizCompleted() : 0;
+            int videos = day != null ? day.getVideosCompleted() : 0;
 
-        for (int i = 0; i < 7; i++) {
-            LocalDateTime dayStart = weekStart.plusDays(i);
             dailyProgress.add(WeeklyProgressDTO.DailyProgress.builder()
-                    .day(dayLabels[i])
-                    .fullDate(dayStart.format(DateTimeFormatter.ISO_DATE))
-                    .xpEarned(0)
-                    .quizCompleted(0)
-                    .studyTimeMinutes(0)
-                    .hasActivity(false)
+                    .day(dayLabels[date.getDayOfWeek().getValue() - 1])
+                    .fullDate(date.format(DateTimeFormatter.ISO_DATE))
+                    .xpEarned(xp)
+                    .quizCompleted(quizzes)
+                    .videosCompleted(videos)
+                    .studyTimeMinutes(day != null ? day.getStudyMinutes() : 0)
+                    .hasActivity(xp > 0 || quizzes > 0 || videos > 0)
                     .build());
         }
-
         return dailyProgress;
     }
+
     /**
      * Mettre à jour le progrès après un quiz
      */
@@ -512,42 +415,34 @@ public class ProgressService {
         System.out.println("  - Temps passé: " + result.getTimeSpentMinutes() + " min");
         System.out.println("  - Réussi: " + result.getPassed());
 
-        // ✅ Ajouter les XP
         int oldXp = progress.getTotalXp();
-        progress.addXp(result.getXpEarned());
-        System.out.println("  - XP: " + oldXp + " → " + progress.getTotalXp());
-
-        // ✅ Incrémenter le nombre de quiz complétés
         int oldQuizCount = progress.getQuizCompleted();
-        progress.incrementQuizCompleted();
-        System.out.println("  - Quiz complétés: " + oldQuizCount + " → " + progress.getQuizCompleted());
-
-        // ✅ Incrémenter le nombre de quiz réussis si passé
-        if (result.getPassed()) {
-            int oldSuccessCount = progress.getQuizSucceeded();
-            progress.incrementQuizSucceeded();
-            System.out.println("  - Quiz réussis: " + oldSuccessCount + " → " + progress.getQuizSucceeded());
-        }
-
-        // ✅ Ajouter le temps d'étude
         int oldStudyTime = progress.getTotalStudyTimeMinutes();
-        progress.addStudyTime(result.getTimeSpentMinutes());
-        System.out.println("  - Temps d'étude: " + oldStudyTime + " → " + progress.getTotalStudyTimeMinutes() + " min");
 
-        // ✅ Mettre à jour le taux de réussite
-        progress.updateSuccessRate();
-        System.out.println("  - Taux de réussite: " + progress.getAverageSuccessRate() + "%");
+        // ✅ XP dans le grand livre : clé = résultat de quiz, un rejeu ne crédite rien
+        int xpEarned = result.getXpEarned() != null ? result.getXpEarned() : 0;
+        int applied = xpLedgerService.record(user.getId(), List.of(new XpLedgerService.XpGrant(
+                xpEarned, "QUIZ_COMPLETED", "Quiz: " + result.getQuiz().getTitle(),
+                "QUIZ_COMPLETED:" + result.getId())));
 
-        // ✅ Mettre à jour la dernière activité
-        progress.setLastActivityDate(LocalDateTime.now());
+        // ✅ XP, quiz complétés/réussis, temps d'étude, taux de réussite, niveau et streak :
+        // une seule instruction UPDATE, aucune mise à jour perdue entre appareils
+        int minutes = result.getTimeSpentMinutes() != null ? result.getTimeSpentMinutes() : 0;
+        userProgressRepository.applyDeltas(user.getId(), applied, 1,
+                Boolean.TRUE.equals(result.getPassed()) ? 1 : 0, minutes, 0, LocalDateTime.now());
+        progressCache.invalidate(user.getId());
+        entityManager.refresh(progress);
 
-        // ✅ Mettre à jour le streak
-        updateStreak(progress);
+        System.out.println("  - XP: " + oldXp + " → " + progress.getTotalXp());
+        System.out.println("  - Quiz complétés: " + oldQuizCount + " → " + progress.getQuizCompleted());
+        System.out.println("  - Quiz réussis: " + progress.getQuizSucceeded());
+        System.out.println("  - Temps d'étude: " + oldStudyTime + " → " + progress.getTotalStudyTimeMinutes() + " min");
+        System.out.println("  - Taux de réussite: " + progress.getAverageSuccessRate() + "%");
         System.out.println("  - Streak actuel: " + progress.getCurrentStreak() + " jours");
         System.out.println("  - Meilleur streak: " + progress.getLongestStreak() + " jours");
 
-        // ✅ Sauvegarder les changements
-        userProgressRepository.saveAndFlush(progress);
+        xpRankService.recordXp(user.getId(), progress.getTotalXp());
+        dailyActivityService.recordQuiz(user.getId(), applied, minutes);
         System.out.println("✅ Progrès sauvegardé avec succès");
     }
     /**
@@ -555,33 +450,111 @@ public class ProgressService {
      */
     @Transactional
     public AddXpResponse addXp(Integer xpAmount, String reason, String source) {
-        User user = getCurrentUser();
+        return addXp(xpAmount, reason, source, null);
+    }
+
+    /**
+     * Ajouter des XP une seule fois par clé d'idempotence
+     * Clé null = attribution non rejouable ; un doublon ne crédite rien
+     */
+    @Transactional
+    public AddXpResponse addXp(Integer xpAmount, String reason, String source, String idempotencyKey) {
+        return awardXp(getCurrentUser(), xpAmount, reason, source, idempotencyKey);
+    }
+
+    /**
+     * Attribuer des XP à un utilisateur donné (hors requête HTTP : bus d'événements)
+     */
+    @Transactional
+    public AddXpResponse awardXp(Long userId, int xpAmount, String reason, String source, String idempotencyKey) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        return awardXp(user, xpAmount, reason, source, idempotencyKey);
+    }
+
+    /**
+     * Appliquer un quiz terminé (résultat relu dans la transaction courante)
+     */
+    @Transactional
+    public void applyQuizCompleted(Long quizResultId) {
+        QuizResult result = quizResultRepository.findById(quizResultId)
+                .orElseThrow(() -> new RuntimeException("Résultat non trouvé"));
+        updateProgressAfterQuiz(result);
+    }
+
+    /**
+     * Compteurs d'une première complétion de vidéo (l'XP est attribué séparément)
+     */
+    @Transactional
+    public void recordVideoCompleted(Long userId, int watchMinutes) {
+        ensureProgressRow(userId);
+        userProgressRepository.applyDeltas(userId, 0, 0, 0, watchMinutes, 1, LocalDateTime.now());
+        progressCache.invalidate(userId);
+        dailyActivityService.recordVideoCompleted(userId, watchMinutes);
+    }
+
+    /**
+     * Réponse XP anticipée pour une attribution publiée sur le bus d'événements
+     * (le solde réel est mis à jour quelques millisecondes plus tard)
+     */
+    public AddXpResponse previewXp(User user, int xpAmount, String idempotencyKey) {
+        if (idempotencyKey != null && xpEventRepository.existsByUserIdAndIdempotencyKey(user.getId(), idempotencyKey)) {
+            UserProgress current = userProgressRepository.findByUser(user)
+                    .orElseGet(() -> UserProgress.builder().totalXp(0).currentLevel(1).build());
+            return buildXpResponse(current, 0, false, "XP déjà attribués pour cet événement");
+        }
+
+        UserProgress projected = userProgressRepository.findByUser(user)
+                .map(current -> UserProgress.builder()
+                        .totalXp(current.getTotalXp())
+                        .currentLevel(current.getCurrentLevel())
+                        .build())
+                .orElseGet(() -> UserProgress.builder().totalXp(0).currentLevel(1).build());
+
+        Integer oldLevel = projected.getCurrentLevel();
+        projected.addXp(xpAmount);
+        boolean leveledUp = projected.getCurrentLevel() > oldLevel;
+        return buildXpResponse(projected, xpAmount, leveledUp, xpMessage(xpAmount, leveledUp, projected.getCurrentLevel()));
+    }
+
+    private AddXpResponse awardXp(User user, int xpAmount, String reason, String source, String idempotencyKey) {
         UserProgress progress = getOrCreateUserProgress(user);
 
         Integer oldLevel = progress.getCurrentLevel();
 
-        progress.addXp(xpAmount);
-        progress.setLastActivityDate(LocalDateTime.now());
-        updateStreak(progress);
+        // Écriture dans le grand livre puis incrément atomique du solde (XP, niveau, streak)
+        int applied = xpLedgerService.award(user.getId(), xpAmount, source, reason, idempotencyKey);
+        if (applied > 0) {
+            progressCache.invalidate(user.getId());
+        }
+        entityManager.refresh(progress);
+
+        if (applied == 0) {
+            return buildXpResponse(progress, 0, false, "XP déjà attribués pour cet événement");
+        }
 
-        userProgressRepository.save(progress);
+        xpRankService.recordXp(user.getId(), progress.getTotalXp());
+        dailyActivityService.recordXp(user.getId(), applied);
 
-        Boolean leveledUp = progress.getCurrentLevel() > oldLevel;
+        boolean leveledUp = progress.getCurrentLevel() > oldLevel;
+        return buildXpResponse(progress, xpAmount, leveledUp, xpMessage(xpAmount, leveledUp, progress.getCurrentLevel()));
+    }
 
-        String message;
+    private String xpMessage(int xpAmount, boolean leveledUp, int level) {
         if (leveledUp) {
-            message = String.format(
+            return String.format(
                     "Félicitations ! Vous avez gagné %d XP et atteint le niveau %d (%s) !",
                     xpAmount,
-                    progress.getCurrentLevel(),
-                    getLevelTitle(progress.getCurrentLevel())
+                    level,
+                    getLevelTitle(level)
             );
-        } else {
-            message = String.format("Vous avez gagné %d XP !", xpAmount);
         }
+        return String.format("Vous avez gagné %d XP !", xpAmount);
+    }
 
+    private AddXpResponse buildXpResponse(UserProgress progress, int xpAdded, boolean leveledUp, String message) {
         return AddXpResponse.builder()
-                .xpAdded(xpAmount)
+                .xpAdded(xpAdded)
                 .totalXp(progress.getTotalXp())
                 .currentLevel(progress.getCurrentLevel())
                 .levelTitle(getLevelTitle(progress.getCurrentLevel()))
@@ -602,6 +575,46 @@ public class ProgressService {
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
     }
 
+    /**
+     * Progression de l'utilisateur connecté depuis le cache (aucun aller-retour base si inchangée)
+     */
+    private ProgressSnapshot getCurrentSnapshot() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        Long userId = progressCache.userIdFor(email, e -> userRepository.findByEmail(e)
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé")));
+        return progressCache.snapshot(userId, this::loadSnapshot);
+    }
+
+    private ProgressSnapshot loadSnapshot(Long userId) {
+        UserProgress progress = userProgressRepository.findByUserId(userId)
+                .orElseGet(() -> {
+                    // Pas d'invalidation ici : on est dans le chargement de cette même entrée
+                    insertProgressRow(userId);
+                    return userProgressRepository.findByUserId(userId)
+                            .orElseThrow(() -> new RuntimeException("Progression introuvable"));
+                });
+        User user = progress.getUser();
+
+        // Copie détachée : l'entité gérée ne doit pas vivre dans le cache
+        UserProgress copy = UserProgress.builder()
+                .id(progress.getId())
+                .totalXp(progress.getTotalXp())
+                .currentLevel(progress.getCurrentLevel())
+                .quizCompleted(progress.getQuizCompleted())
+                .quizSucceeded(progress.getQuizSucceeded())
+                .totalStudyTimeMinutes(progress.getTotalStudyTimeMinutes())
+                .videosWatched(progress.getVideosWatched())
+                .averageSuccessRate(progress.getAverageSuccessRate())
+                .currentStreak(progress.getCurrentStreak())
+                .longestStreak(progress.getLongestStreak())
+                .createdAt(progress.getCreatedAt())
+                .updatedAt(progress.getUpdatedAt())
+                .lastActivityDate(progress.getLastActivityDate())
+                .build();
+        return new ProgressSnapshot(userId, user.getNom(), user.getPrenom(), user.getEmail(), user.getNiveau(), copy);
+    }
+
     private List<StatisticsDTO.SubjectProgress> getSubjectProgress(Long userId) {
         List<Object[]> results = quizResultRepository.getProgressBySubject(userId);
         return results.stream()
@@ -656,34 +669,6 @@ public class ProgressService {
         return goals;
     }
 
-    public void updateStreak(UserProgress progress) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime lastActivity = progress.getLastActivityDate();
-
-        if (lastActivity == null) {
-            progress.setCurrentStreak(1);
-            progress.setLongestStreak(1);
-            return;
-        }
-
-        long daysBetween = ChronoUnit.DAYS.between(
-                lastActivity.toLocalDate(), now.toLocalDate()
-        );
-
-        if (daysBetween == 0) {
-            return;
-        } else if (daysBetween == 1) {
-            progress.setCurrentStreak(progress.getCurrentStreak() + 1);
-            if (progress.getCurrentStreak() > progress.getLongestStreak()) {
-                progress.setLongestStreak(progress.getCurrentStreak());
-            }
-        } else {
-            progress.setCurrentStreak(1);
-        }
-
-        progress.setLastActivityDate(now);
-    }
-
     private String formatStudyTime(int minutes) {
         if (minutes < 60) {
             return minutes + "min";
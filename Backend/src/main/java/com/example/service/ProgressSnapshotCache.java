@@ -0,0 +1,117 @@
+package com.example.service;
+
+import com.example.dto.StatisticsDTO;
+import com.example.model.UserProgress;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cache mémoire (Caffeine) des lectures de progression par utilisateur
+ *
+ * L'écran de profil appelle /api/progress, /summary, /level et /statistics
+ * coup sur coup : email → userId et l'instantané de progression (copie
+ * détachée, jamais modifiée) sont servis depuis la mémoire tant que rien n'a
+ * changé. ProgressService invalide l'entrée à chaque écriture, immédiatement
+ * et de nouveau après le commit pour qu'une lecture concurrente ne remette
+ * pas en cache l'état d'avant.
+ */
+@Component
+public class ProgressSnapshotCache {
+
+    @Value("${progress.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${progress.cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private Cache<String, Long> userIdByEmail;
+    private Cache<Long, ProgressSnapshot> snapshots;
+    private Cache<Long, StatisticsParts> statistics;
+
+    @PostConstruct
+    public void init() {
+        userIdByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+        snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+        statistics = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    public Long userIdFor(String email, Function<String, Long> loader) {
+        return userIdByEmail.get(email, loader);
+    }
+
+    public ProgressSnapshot snapshot(Long userId, Function<Long, ProgressSnapshot> loader) {
+        return snapshots.get(userId, loader);
+    }
+
+    public StatisticsParts statistics(Long userId, Function<Long, StatisticsParts> loader) {
+        return statistics.get(userId, loader);
+    }
+
+    /**
+     * Oublier la progression d'un utilisateur (après toute écriture)
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Oublier l'association email → utilisateur (changement d'email, profil modifié)
+     */
+    public void invalidateUser(String email, Long userId) {
+        if (email != null) {
+            userIdByEmail.invalidate(email);
+        }
+        invalidate(userId);
+    }
+
+    public void clear() {
+        userIdByEmail.invalidateAll();
+        snapshots.invalidateAll();
+        statistics.invalidateAll();
+    }
+
+    private void evict(Long userId) {
+        snapshots.invalidate(userId);
+        statistics.invalidate(userId);
+    }
+
+    /**
+     * Instantané immuable : identité de l'utilisateur + copie détachée de sa progression
+     */
+    public record ProgressSnapshot(Long userId, String nom, String prenom, String email, String niveau,
+                                   UserProgress progress) {
+    }
+
+    /**
+     * Parties des statistiques issues de quiz_results (ne changent qu'à la fin d'un quiz)
+     */
+    public record StatisticsParts(List<StatisticsDTO.SubjectProgress> subjects,
+                                  List<StatisticsDTO.RecentActivity> recentActivities) {
+    }
+}
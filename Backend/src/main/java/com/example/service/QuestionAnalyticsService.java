@@ -0,0 +1,587 @@
+package com.example.service;
+
+import com.example.dto.QuestionAnalyticsDTO;
+import com.example.model.AnalyticsCheckpoint;
+import com.example.model.QuestionOptionPick;
+import com.example.model.QuestionStats;
+import com.example.repository.AnalyticsCheckpointRepository;
+import com.example.repository.QuestionOptionPickRepository;
+import com.example.repository.QuestionStatsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Statistiques par question : réponses, taux de réussite, temps moyen et
+ * répartition des options choisies
+ *
+ * Chaque réponse soumise (ou modifiée) produit un delta accumulé en mémoire,
+ * écrit périodiquement par upsert additif. L'historique antérieur à la mise en
+ * service (ids de user_answers jusqu'à l'horizon fixé au premier démarrage) est
+ * agrégé par un job de rattrapage qui parcourt la table par tranches d'ids,
+ * sans entités, et enregistre son avancement avec chaque tranche. Le rattrapage
+ * tourne sur son propre thread, hors du planificateur partagé par les flush ;
+ * tant qu'il n'est pas terminé, le balayage des sessions n'archive pas de réponses.
+ */
+@Service
+@Slf4j
+public class QuestionAnalyticsService {
+
+    private static final String CHECKPOINT = "question_analytics";
+
+    // Deltas additifs : chaque tranche ou chaque flush s'ajoute aux compteurs existants
+    private static final String STATS_SQL =
+            "INSERT INTO question_stats (question_id, quiz_id, attempts, correct_count, time_sum_seconds, " +
+            "timed_attempts, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE attempts = attempts + VALUES(attempts), " +
+            "correct_count = correct_count + VALUES(correct_count), " +
+            "time_sum_seconds = time_sum_seconds + VALUES(time_sum_seconds), " +
+            "timed_attempts = timed_attempts + VALUES(timed_attempts), updated_at = VALUES(updated_at)";
+
+    private static final String PICK_SQL =
+            "INSERT INTO question_option_picks (question_id, option_id, pick_count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE pick_count = pick_count + VALUES(pick_count)";
+
+    // Horizon = dernière réponse existante au premier démarrage ; les suivantes passent par les deltas
+    private static final String INIT_CHECKPOINT_SQL =
+            "INSERT IGNORE INTO analytics_checkpoints (name, last_id, horizon_id, updated_at) " +
+            "SELECT ?, 0, COALESCE(MAX(id), 0), ? FROM user_answers";
+
+    private static final String ADVANCE_CHECKPOINT_SQL =
+            "UPDATE analytics_checkpoints SET last_id = ?, updated_at = ? WHERE name = ? AND last_id = ?";
+
+    private static final String CATCH_UP_SQL =
+            "SELECT ua.id, ua.question_id, q.quiz_id, ua.is_correct, ua.time_spent_seconds, ua.user_answer " +
+            "FROM user_answers ua JOIN questions q ON q.id = ua.question_id " +
+            "WHERE ua.id > ? AND ua.id <= ? ORDER BY ua.id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private QuizSnapshotCache quizSnapshotCache;
+
+    @Autowired
+    private QuestionStatsRepository questionStatsRepository;
+
+    @Autowired
+    private QuestionOptionPickRepository questionOptionPickRepository;
+
+    @Autowired
+    private AnalyticsCheckpointRepository analyticsCheckpointRepository;
+
+    @Value("${question.analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${question.analytics.catch-up.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${question.analytics.catch-up.max-chunks:20}")
+    private int maxChunks;
+
+    @Value("${question.analytics.min-attempts:20}")
+    private long defaultMinAttempts;
+
+    private TransactionTemplate writeTransaction;
+
+    private final Map<Long, QuestionDelta> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean catchingUp = new AtomicBoolean(false);
+    private final ExecutorService catchUpExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "question-analytics-catch-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushedQuestions = new LongAdder();
+    private final LongAdder catchUpRows = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong lastChunkMs = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastCatchUpAt = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Fixer l'horizon du rattrapage au premier démarrage (sans effet ensuite)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initCheckpoint() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INIT_CHECKPOINT_SQL, CHECKPOINT, Timestamp.valueOf(LocalDateTime.now()));
+            analyticsCheckpointRepository.findById(CHECKPOINT).ifPresent(checkpoint ->
+                    log.info("📊 Analyse des questions : historique traité jusqu'à #{} sur #{}",
+                            checkpoint.getLastId(), checkpoint.getHorizonId()));
+        } catch (Exception e) {
+            log.error("❌ Initialisation du rattrapage des statistiques de questions impossible: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Enregistrer une réponse soumise : previous est l'état précédent de la
+     * réponse (null pour une première réponse), retiré des compteurs
+     * Dans une transaction, le delta n'est pris en compte qu'au commit.
+     */
+    public void record(Long quizId, QuizSnapshot.QuestionContent question,
+                       AnswerSample previous, AnswerSample current) {
+        if (!enabled || question == null) {
+            return;
+        }
+        Long previousOption = previous != null ? chosenOption(question, previous.answer()) : null;
+        Long currentOption = chosenOption(question, current.answer());
+
+        Runnable apply = () -> {
+            accumulate(question.id(), quizId, delta -> {
+                if (previous != null) {
+                    // Réponse modifiée : l'ancien état est retiré, le nombre de réponses ne change pas
+                    delta.add(previous, previousOption, -1);
+                }
+                delta.add(current, currentOption, 1);
+            });
+            recorded.increment();
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Écrire les deltas accumulés (une transaction, deux lots JDBC)
+     */
+    @Scheduled(fixedDelayString = "${question.analytics.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, QuestionDelta> batch = new HashMap<>();
+        for (Long questionId : new ArrayList<>(pending.keySet())) {
+            QuestionDelta delta = pending.remove(questionId);
+            if (delta != null) {
+                synchronized (delta) {
+                    delta.flushed = true;
+                }
+                batch.put(questionId, delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            writeTransaction.executeWithoutResult(status -> write(batch));
+            flushedQuestions.add(batch.size());
+        } catch (Exception e) {
+            // Remettre les deltas en attente : nouvelle tentative au prochain cycle
+            failures.increment();
+            batch.forEach((questionId, delta) -> accumulate(questionId, delta.quizId, target -> target.merge(delta)));
+            log.error("❌ Échec écriture des statistiques de questions: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        catchUpExecutor.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Lancer le rattrapage sur son propre thread : les tranches ne retardent pas les flush planifiés
+     */
+    @Scheduled(initialDelayString = "${question.analytics.catch-up.interval-ms:60000}",
+            fixedDelayString = "${question.analytics.catch-up.interval-ms:60000}")
+    public void scheduleCatchUp() {
+        if (enabled && !catchingUp.get()) {
+            catchUpExecutor.execute(this::catchUp);
+        }
+    }
+
+    /**
+     * Rattraper l'historique par tranches d'ids, chacune écrite avec son point d'avancement
+     */
+    public void catchUp() {
+        if (!enabled || !catchingUp.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Optional<AnalyticsCheckpoint> checkpoint = analyticsCheckpointRepository.findById(CHECKPOINT);
+            if (checkpoint.isEmpty()) {
+                return;
+            }
+            long lastId = checkpoint.get().getLastId();
+            long horizon = checkpoint.get().getHorizonId();
+            long start = System.currentTimeMillis();
+            long rows = 0;
+
+            for (int chunk = 0; chunk < maxChunks && lastId < horizon; chunk++) {
+                long chunkStart = System.currentTimeMillis();
+                ChunkResult result = readChunk(lastId, horizon);
+                long to = result.rows() < chunkSize ? horizon : result.lastId();
+                writeChunk(result.deltas(), lastId, to);
+
+                lastId = to;
+                rows += result.rows();
+                catchUpRows.add(result.rows());
+                lastChunkMs.set(System.currentTimeMillis() - chunkStart);
+            }
+
+            if (rows > 0) {
+                log.info("📊 Rattrapage des statistiques de questions : {} réponses en {} ms (#{} / #{})",
+                        rows, System.currentTimeMillis() - start, lastId, horizon);
+            }
+        } catch (Exception e) {
+            failures.increment();
+            log.error("❌ Échec du rattrapage des statistiques de questions: {}", e.getMessage(), e);
+        } finally {
+            lastCatchUpAt.set(LocalDateTime.now());
+            catchingUp.set(false);
+        }
+    }
+
+    /**
+     * Historique pas encore entièrement agrégé : ses réponses ne doivent pas quitter user_answers
+     */
+    public boolean isCatchUpPending() {
+        if (!enabled) {
+            return false;
+        }
+        return analyticsCheckpointRepository.findById(CHECKPOINT)
+                .map(checkpoint -> checkpoint.getLastId() < checkpoint.getHorizonId())
+                .orElse(true);  // Horizon pas encore fixé
+    }
+
+    /**
+     * Statistiques de toutes les questions d'un quiz, dans l'ordre du quiz
+     */
+    public List<QuestionAnalyticsDTO> getQuizAnalytics(Long quizId) {
+        QuizSnapshot snapshot = quizSnapshotCache.get(quizId);
+        Map<Long, QuestionStats> stats = questionStatsRepository.findByQuizIdOrderByQuestionIdAsc(quizId).stream()
+                .collect(Collectors.toMap(QuestionStats::getQuestionId, s -> s));
+        Map<Long, Map<Long, Long>> picks = loadPicks(stats.keySet().stream().toList());
+
+        List<QuestionAnalyticsDTO> result = new ArrayList<>();
+        for (QuizSnapshot.QuestionContent question : snapshot.questions()) {
+            QuestionStats questionStats = stats.get(question.id());
+            if (questionStats == null) {
+                questionStats = QuestionStats.builder().questionId(question.id()).quizId(quizId).build();
+            }
+            result.add(toDTO(questionStats, question, picks.getOrDefault(question.id(), Map.of())));
+        }
+        return result;
+    }
+
+    /**
+     * Statistiques d'une question
+     */
+    public QuestionAnalyticsDTO getQuestionAnalytics(Long questionId) {
+        QuestionStats stats = questionStatsRepository.findById(questionId)
+                .orElseThrow(() -> new RuntimeException("Aucune réponse enregistrée pour cette question"));
+        return toDTO(stats, findQuestion(stats), loadPicks(List.of(questionId)).getOrDefault(questionId, Map.of()));
+    }
+
+    /**
+     * Questions au plus faible taux de réussite, tous quiz confondus
+     */
+    public List<QuestionAnalyticsDTO> getHardestQuestions(int limit, Long minAttempts) {
+        List<QuestionStats> stats = questionStatsRepository.findHardest(
+                minAttempts != null ? minAttempts : defaultMinAttempts, PageRequest.of(0, Math.max(1, limit)));
+        Map<Long, Map<Long, Long>> picks = loadPicks(stats.stream().map(QuestionStats::getQuestionId).toList());
+
+        return stats.stream()
+                .map(s -> toDTO(s, findQuestion(s), picks.getOrDefault(s.getQuestionId(), Map.of())))
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("pendingQuestions", pending.size());
+        metrics.put("recorded", recorded.sum());
+        metrics.put("flushedQuestions", flushedQuestions.sum());
+        metrics.put("catchUpRunning", catchingUp.get());
+        metrics.put("catchUpRows", catchUpRows.sum());
+        analyticsCheckpointRepository.findById(CHECKPOINT).ifPresent(checkpoint -> {
+            metrics.put("catchUpLastId", checkpoint.getLastId());
+            metrics.put("catchUpHorizonId", checkpoint.getHorizonId());
+            metrics.put("catchUpDone", checkpoint.getLastId() >= checkpoint.getHorizonId());
+        });
+        metrics.put("lastChunkMs", lastChunkMs.get());
+        metrics.put("lastCatchUpAt", lastCatchUpAt.get());
+        metrics.put("failures", failures.sum());
+        return metrics;
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    /**
+     * Appliquer une modification au delta en attente d'une question
+     * (recréé si le flush vient de le retirer)
+     */
+    private void accumulate(Long questionId, Long quizId, Consumer<QuestionDelta> change) {
+        while (true) {
+            QuestionDelta delta = pending.computeIfAbsent(questionId, id -> new QuestionDelta(quizId));
+            synchronized (delta) {
+                if (delta.flushed) {
+                    continue;
+                }
+                change.accept(delta);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lire une tranche de réponses (lignes JDBC, pas d'entités) et l'agréger par question
+     */
+    private ChunkResult readChunk(long afterId, long horizon) {
+        Map<Long, QuestionDelta> deltas = new HashMap<>();
+        Map<Long, Optional<QuizSnapshot>> snapshots = new HashMap<>();
+        long[] state = {afterId, 0};
+
+        jdbcTemplate.query(CATCH_UP_SQL, rs -> {
+            state[0] = rs.getLong(1);
+            state[1]++;
+            long questionId = rs.getLong(2);
+            long quizId = rs.getLong(3);
+            AnswerSample sample = new AnswerSample(
+                    rs.getString(6), rs.getBoolean(4), (Integer) rs.getObject(5));
+
+            QuizSnapshot.QuestionContent question = snapshots
+                    .computeIfAbsent(quizId, this::findSnapshot)
+                    .map(snapshot -> snapshot.question(questionId))
+                    .orElse(null);
+            Long optionId = question != null ? chosenOption(question, sample.answer()) : null;
+
+            deltas.computeIfAbsent(questionId, id -> new QuestionDelta(quizId)).add(sample, optionId, 1);
+        }, afterId, horizon, chunkSize);
+
+        return new ChunkResult(deltas, state[0], state[1]);
+    }
+
+    /**
+     * Écrire une tranche et avancer le point de from à to dans la même transaction
+     * Si le point a bougé entre-temps (autre instance), rien n'est écrit
+     */
+    void writeChunk(Map<Long, QuestionDelta> deltas, long from, long to) {
+        writeTransaction.executeWithoutResult(status -> {
+            write(deltas);
+            int advanced = jdbcTemplate.update(ADVANCE_CHECKPOINT_SQL,
+                    to, Timestamp.valueOf(LocalDateTime.now()), CHECKPOINT, from);
+            if (advanced != 1) {
+                // Tranche déjà traitée par une autre instance
+                throw new IllegalStateException("Point d'avancement modifié pendant la tranche");
+            }
+        });
+    }
+
+    private void write(Map<Long, QuestionDelta> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> statsRows = new ArrayList<>();
+        List<Object[]> pickRows = new ArrayList<>();
+
+        deltas.forEach((questionId, delta) -> {
+            if (delta.attempts != 0 || delta.correct != 0 || delta.timeSum != 0 || delta.timed != 0) {
+                statsRows.add(new Object[]{questionId, delta.quizId, delta.attempts, delta.correct,
+                        delta.timeSum, delta.timed, now});
+            }
+            delta.picks.forEach((optionId, count) -> {
+                if (count != 0) {
+                    pickRows.add(new Object[]{questionId, optionId, count});
+                }
+            });
+        });
+
+        if (!statsRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(STATS_SQL, statsRows);
+        }
+        if (!pickRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(PICK_SQL, pickRows);
+        }
+    }
+
+    /**
+     * Option choisie : id d'option (QCM), sinon lettre ou texte de l'option (vrai/faux)
+     */
+    private Long chosenOption(QuizSnapshot.QuestionContent question, String answer) {
+        if (answer == null || question.options().isEmpty()) {
+            return null;
+        }
+        String value = answer.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        for (QuizSnapshot.OptionContent option : question.options()) {
+            if (value.equals(String.valueOf(option.id()))) {
+                return option.id();
+            }
+        }
+        for (QuizSnapshot.OptionContent option : question.options()) {
+            if (value.equalsIgnoreCase(option.optionLetter())
+                    || (option.optionText() != null && value.equalsIgnoreCase(option.optionText().trim()))) {
+                return option.id();
+            }
+        }
+        return null;
+    }
+
+    private Optional<QuizSnapshot> findSnapshot(Long quizId) {
+        try {
+            return Optional.of(quizSnapshotCache.get(quizId));
+        } catch (RuntimeException e) {
+            // Quiz supprimé : réponses comptées, options ignorées
+            return Optional.empty();
+        }
+    }
+
+    private QuizSnapshot.QuestionContent findQuestion(QuestionStats stats) {
+        return findSnapshot(stats.getQuizId())
+                .map(snapshot -> snapshot.question(stats.getQuestionId()))
+                .orElse(null);
+    }
+
+    private Map<Long, Map<Long, Long>> loadPicks(List<Long> questionIds) {
+        if (questionIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Map<Long, Long>> picks = new HashMap<>();
+        for (QuestionOptionPick pick : questionOptionPickRepository.findByQuestionIdIn(questionIds)) {
+            picks.computeIfAbsent(pick.getQuestionId(), id -> new HashMap<>())
+                    .put(pick.getOptionId(), Math.max(0, pick.getPickCount()));
+        }
+        return picks;
+    }
+
+    private QuestionAnalyticsDTO toDTO(QuestionStats stats, QuizSnapshot.QuestionContent question,
+                                       Map<Long, Long> picks) {
+        long attempts = Math.max(0, stats.getAttempts());
+        long correct = Math.min(attempts, Math.max(0, stats.getCorrectCount()));
+        long timed = Math.max(0, stats.getTimedAttempts());
+
+        List<QuestionAnalyticsDTO.OptionPick> options = new ArrayList<>();
+        if (question != null) {
+            for (QuizSnapshot.OptionContent option : question.options()) {
+                long count = picks.getOrDefault(option.id(), 0L);
+                options.add(QuestionAnalyticsDTO.OptionPick.builder()
+                        .optionId(option.id())
+                        .optionLetter(option.optionLetter())
+                        .optionText(option.optionText())
+                        .correct(option.correct())
+                        .picks(count)
+                        .pickRate(percentage(count, attempts))
+                        .build());
+            }
+        }
+
+        return QuestionAnalyticsDTO.builder()
+                .questionId(stats.getQuestionId())
+                .quizId(stats.getQuizId())
+                .questionText(question != null ? question.questionText() : null)
+                .type(question != null ? question.type() : null)
+                .attempts(attempts)
+                .correctRate(percentage(correct, attempts))
+                .averageTimeSeconds(timed > 0
+                        ? Math.round(Math.max(0, stats.getTimeSumSeconds()) * 10.0 / timed) / 10.0
+                        : null)
+                .options(options)
+                .build();
+    }
+
+    private static Double percentage(long count, long total) {
+        return total > 0 ? Math.round(count * 1000.0 / total) / 10.0 : 0.0;
+    }
+
+    /**
+     * État d'une réponse pris en compte dans les statistiques
+     */
+    public record AnswerSample(String answer, boolean correct, Integer timeSpentSeconds) {
+    }
+
+    private record ChunkResult(Map<Long, QuestionDelta> deltas, long lastId, long rows) {
+    }
+
+    /**
+     * Compteurs à ajouter pour une question (protégé par synchronized sur l'instance)
+     */
+    static class QuestionDelta {
+        final Long quizId;
+        final Map<Long, Long> picks = new HashMap<>();
+        long attempts;
+        long correct;
+        long timeSum;
+        long timed;
+        boolean flushed;
+
+        QuestionDelta(Long quizId) {
+            this.quizId = quizId;
+        }
+
+        void add(AnswerSample sample, Long optionId, int sign) {
+            attempts += sign;
+            if (sample.correct()) {
+                correct += sign;
+            }
+            if (sample.timeSpentSeconds() != null) {
+                timeSum += (long) sign * sample.timeSpentSeconds();
+                timed += sign;
+            }
+            if (optionId != null) {
+                picks.merge(optionId, (long) sign, Long::sum);
+            }
+        }
+
+        void merge(QuestionDelta other) {
+            attempts += other.attempts;
+            correct += other.correct;
+            timeSum += other.timeSum;
+            timed += other.timed;
+            other.picks.forEach((optionId, count) -> picks.merge(optionId, count, Long::sum));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.service;
+
+import com.example.dto.QuizDetailDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Cache de la partie commune du détail d'un quiz
+ *
+ * Description, distribution des questions, statistiques et top 5 sont les
+ * mêmes pour tous : calculés une fois par version du contenu (et au plus
+ * toutes les ttl-seconds pour les statistiques), puis gardés en JSON déjà
+ * sérialisé avec leur ETag. Par requête, seul le bloc userProgress est
+ * sérialisé et inséré dans ces octets.
+ *
+ * Clé = (quiz, version) : une nouvelle version est une nouvelle entrée. La
+ * construction (requêtes comprises) se fait hors des verrous de la map ; les
+ * requêtes simultanées pour la même clé attendent le même chargement.
+ */
+@Component
+public class QuizDetailCache {
+
+    private static final String USER_PROGRESS_FIELD = "userProgress";
+
+    @Autowired
+    private ObjectProvider<RequestMappingHandlerAdapter> handlerAdapter;
+
+    @Value("${quiz.detail.cache.max-size:500}")
+    private long maxSize;
+
+    @Value("${quiz.detail.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private AsyncCache<DetailKey, SharedQuizDetail> details;
+    private volatile ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void init() {
+        details = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .buildAsync();
+    }
+
+    /**
+     * Partie commune pour une version de contenu (reconstruite une seule fois par clé)
+     * Le premier appelant construit dans son propre thread, les autres attendent son résultat
+     */
+    public SharedQuizDetail get(Long quizId, String version, Function<Long, QuizDetailDTO> builder) {
+        DetailKey key = new DetailKey(quizId, version);
+        CompletableFuture<SharedQuizDetail> loading = new CompletableFuture<>();
+        CompletableFuture<SharedQuizDetail> cached = details.asMap().putIfAbsent(key, loading);
+        if (cached != null) {
+            return join(cached);
+        }
+
+        try {
+            loading.complete(serialize(version, builder.apply(quizId)));
+        } catch (RuntimeException e) {
+            details.asMap().remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        return loading.join();
+    }
+
+    public void invalidate(Long quizId) {
+        details.asMap().keySet().removeIf(key -> key.quizId().equals(quizId));
+    }
+
+    public void clear() {
+        details.synchronous().invalidateAll();
+    }
+
+    /**
+     * Réponse complète : partie commune + bloc utilisateur, et ETag combiné
+     */
+    public QuizDetailPayload merge(SharedQuizDetail shared, QuizDetailDTO.UserQuizProgress userProgress) {
+        byte[] user = write(userProgress);
+        byte[] json = shared.json();
+
+        // {...commun} → {...commun,"userProgress":{...}}
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length + user.length + 20);
+        out.write(json, 0, json.length - 1);
+        out.writeBytes((",\"" + USER_PROGRESS_FIELD + "\":").getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(user);
+        out.write('}');
+
+        String etag = "\"" + shared.hash() + "-" + DigestUtils.md5DigestAsHex(user) + "\"";
+        return new QuizDetailPayload(out.toByteArray(), etag);
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private static SharedQuizDetail join(CompletableFuture<SharedQuizDetail> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Même exception que pour le thread qui a construit l'entrée
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private SharedQuizDetail serialize(String version, QuizDetailDTO detail) {
+        ObjectNode tree = mapper().valueToTree(detail);
+        tree.remove(USER_PROGRESS_FIELD);
+        byte[] json = write(tree);
+        return new SharedQuizDetail(version, json, DigestUtils.md5DigestAsHex(json));
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return mapper().writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Même ObjectMapper que les réponses JSON de Spring MVC (dates, inclusion des null)
+     */
+    private ObjectMapper mapper() {
+        ObjectMapper mapper = objectMapper;
+        if (mapper == null) {
+            for (HttpMessageConverter<?> converter : handlerAdapter.getObject().getMessageConverters()) {
+                if (converter instanceof MappingJackson2HttpMessageConverter json
+                        && json.canWrite(QuizDetailDTO.class, MediaType.APPLICATION_JSON)) {
+                    mapper = json.getObjectMapper();
+                    break;
+                }
+            }
+            if (mapper == null) {
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+            }
+            objectMapper = mapper;
+        }
+        return mapper;
+    }
+
+    private record DetailKey(Long quizId, String version) {
+    }
+
+    public record SharedQuizDetail(String version, byte[] json, String hash) {
+    }
+
+    public record QuizDetailPayload(byte[] json, String etag) {
+    }
+}
@@ -1,15 +1,14 @@
 package com.example.service;
 
+import com.example.dto.QuestionDTO;
 import com.example.dto.QuizDTO;
 import com.example.dto.QuizDetailDTO;
 import com.example.model.Quiz;
 import com.example.model.User;
 import com.example.model.QuizResult;
-import com.example.model.Question;
 import com.example.repository.QuizRepository;
 import com.example.repository.QuizResultRepository;
 import com.example.repository.UserRepository;
-import com.example.repository.QuestionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -34,7 +33,16 @@ public class QuizService {
     private UserRepository userRepository;
 
     @Autowired
-    private QuestionRepository questionRepository;
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private QuizSnapshotCache quizSnapshotCache;
+
+    @Autowired
+    private QuizDetailCache quizDetailCache;
+
+    @Autowired
+    private ProgressSnapshotCache progressSnapshotCache;
 
     /**
      * Récupérer tous les quiz avec filtres optionnels
@@ -96,48 +104,44 @@ public class QuizService {
 
 
     /**
-     * ⭐ MÉTHODE CORRIGÉE - Récupérer les détails complets d'un quiz
+     * ⭐ Détails complets d'un quiz, en JSON prêt à envoyer
+     * Partie commune servie depuis le cache ; seule la progression de
+     * l'utilisateur connecté est calculée (une requête indexée)
      */
-    public QuizDetailDTO getQuizDetail(Long quizId) {
-        System.out.println("========================================");
-        System.out.println("📥 DÉBUT - Récupération détails quiz #" + quizId);
-        System.out.println("========================================");
-
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new RuntimeException("Quiz non trouvé avec l'ID: " + quizId));
+    public QuizDetailCache.QuizDetailPayload getQuizDetail(Long quizId) {
+        System.out.println("📥 Récupération détails quiz #" + quizId);
 
-        if (!quiz.getIsActive()) {
+        QuizSnapshot snapshot = quizSnapshotCache.get(quizId);
+        if (!snapshot.active()) {
             throw new RuntimeException("Ce quiz n'est plus disponible");
         }
 
-        // Récupérer les questions
-        List<Question> questions = new ArrayList<>();
-        try {
-            questions = questionRepository.findByQuizId(quizId);
-            System.out.println("✅ " + questions.size() + " questions trouvées");
-        } catch (Exception e) {
-            System.err.println("⚠️ Erreur questions: " + e.getMessage());
-        }
+        QuizDetailCache.SharedQuizDetail shared = quizDetailCache.get(quizId, snapshot.version(),
+                id -> buildSharedDetail(snapshot));
 
-        QuizDetailDTO.QuestionDistribution distribution = buildQuestionDistribution(questions);
+        // ⭐ Stats utilisateur (SEULEMENT l'utilisateur connecté)
+        return quizDetailCache.merge(shared, buildUserProgress(quizId));
+    }
 
-        // ⭐ CORRECTION 1: Récupérer TOUS les résultats pour les stats globales
-        List<QuizResult> allResults = new ArrayList<>();
-        try {
-            allResults = quizResultRepository.findByQuizId(quizId);
-            System.out.println("📊 STATS GLOBALES: " + allResults.size() + " résultats totaux (tous utilisateurs)");
-        } catch (Exception e) {
-            System.err.println("⚠️ Erreur résultats globaux: " + e.getMessage());
-        }
+    /**
+     * Partie commune à tous les utilisateurs (mise en cache par QuizDetailCache)
+     * Les questions viennent du snapshot du quiz, déjà en mémoire
+     */
+    private QuizDetailDTO buildSharedDetail(QuizSnapshot snapshot) {
+        Long quizId = snapshot.quizId();
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new RuntimeException("Quiz non trouvé avec l'ID: " + quizId));
 
-        // ⭐ Stats globales (TOUS les utilisateurs)
-        QuizDetailDTO.QuizStatistics statistics = buildQuizStatistics(allResults);
-        List<QuizDetailDTO.LeaderboardEntry> topScores = buildLeaderboard(allResults);
+        List<QuestionDTO> questions = snapshot.questionDTOs();
+        QuizDetailDTO.QuestionDistribution distribution = buildQuestionDistribution(questions);
 
-        // ⭐ CORRECTION 2: Stats utilisateur (SEULEMENT l'utilisateur connecté)
-        QuizDetailDTO.UserQuizProgress userProgress = buildUserProgress(quizId);
+        // ⭐ Stats globales et top 5 (TOUS les utilisateurs) depuis les agrégats du quiz
+        QuizDetailDTO.QuizStatistics statistics = quizStatsService.getStatistics(quizId);
+        List<QuizDetailDTO.LeaderboardEntry> topScores = quizStatsService.getTopScores(quizId);
+        System.out.println("📊 Détail commun du quiz #" + quizId + " reconstruit: " +
+                questions.size() + " questions, " + statistics.getTotalAttempts() + " tentatives");
 
-        QuizDetailDTO detailDTO = QuizDetailDTO.builder()
+        return QuizDetailDTO.builder()
                 .id(quiz.getId())
                 .title(quiz.getTitle())
                 .description(quiz.getDescription())
@@ -152,30 +156,24 @@ public class QuizService {
                 .createdBy("SmartLearn")
                 .questionDistribution(distribution)
                 .statistics(statistics)
-                .userProgress(userProgress)
                 .topScores(topScores)
                 .prerequisites(new ArrayList<>())
                 .recommendedLevel(quiz.getDifficulty())
                 .topics(new ArrayList<>())
                 .build();
-
-        System.out.println("========================================");
-        System.out.println("✅ FIN - Détails construits avec succès");
-        System.out.println("========================================");
-        return detailDTO;
     }
 
     /**
      * Construire la distribution des types de questions
      */
-    private QuizDetailDTO.QuestionDistribution buildQuestionDistribution(List<Question> questions) {
+    private QuizDetailDTO.QuestionDistribution buildQuestionDistribution(List<QuestionDTO> questions) {
         int multipleChoice = 0;
         int trueFalse = 0;
         int shortAnswer = 0;
         int matching = 0;
         int withImages = 0;
 
-        for (Question q : questions) {
+        for (QuestionDTO q : questions) {
             String type = q.getType() != null ? q.getType().toUpperCase() : "";
 
             switch (type) {
@@ -211,97 +209,13 @@ public class QuizService {
                 .build();
     }
 
-    /**
-     * ⭐ MÉTHODE CORRECTE - Statistiques globales (TOUS LES UTILISATEURS)
-     * Cette méthode doit bien utiliser TOUS les résultats
-     */
-    private QuizDetailDTO.QuizStatistics buildQuizStatistics(List<QuizResult> allResults) {
-        System.out.println("📈 Construction statistiques GLOBALES");
-        System.out.println("   Résultats analysés: " + allResults.size() + " (tous utilisateurs)");
-
-        if (allResults.isEmpty()) {
-            return QuizDetailDTO.QuizStatistics.builder()
-                    .totalAttempts(0)
-                    .averageScore(0.0)
-                    .completionRate(0)
-                    .averageTimeMinutes(0.0)
-                    .build();
-        }
-
-        int totalAttempts = allResults.size();
-
-        double averageScore = allResults.stream()
-                .filter(r -> r.getScore() != null)
-                .mapToInt(QuizResult::getScore)
-                .average()
-                .orElse(0.0);
-
-        long completedCount = allResults.stream()
-                .filter(r -> r.getCompletedAt() != null)
-                .count();
-        int completionRate = (int) ((completedCount * 100.0) / totalAttempts);
-
-        double averageTime = allResults.stream()
-                .filter(r -> r.getTimeSpentMinutes() != null)
-                .mapToInt(QuizResult::getTimeSpentMinutes)
-                .average()
-                .orElse(0.0);
-
-        System.out.println("   ✅ Stats: " + totalAttempts + " tentatives, score moyen: " + averageScore + "%");
-
-        return QuizDetailDTO.QuizStatistics.builder()
-                .totalAttempts(totalAttempts)
-                .averageScore(averageScore)
-                .completionRate(completionRate)
-                .averageTimeMinutes(averageTime)
-                .build();
-    }
-
-    /**
-     * ⭐ MÉTHODE CORRECTE - Leaderboard (TOP 5 DE TOUS LES UTILISATEURS)
-     * Cette méthode doit bien utiliser TOUS les résultats
-     */
-    private List<QuizDetailDTO.LeaderboardEntry> buildLeaderboard(List<QuizResult> allResults) {
-        System.out.println("🏆 Construction LEADERBOARD GLOBAL");
-        System.out.println("   Résultats analysés: " + allResults.size() + " (tous utilisateurs)");
-
-        return allResults.stream()
-                .filter(r -> r.getCompletedAt() != null && r.getScore() != null)
-                .sorted((r1, r2) -> Integer.compare(r2.getScore(), r1.getScore()))
-                .limit(5)
-                .map(r -> {
-                    int rank = (int) allResults.stream()
-                            .filter(result -> result.getScore() != null && result.getScore() > r.getScore())
-                            .count() + 1;
-
-                    String username = "Utilisateur";
-                    try {
-                        username = r.getUser() != null && r.getUser().getUsername() != null
-                                ? r.getUser().getUsername()
-                                : "Anonyme";
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Erreur username: " + e.getMessage());
-                    }
-
-                    System.out.println("   #" + rank + ": " + username + " - " + r.getScore() + "%");
-
-                    return QuizDetailDTO.LeaderboardEntry.builder()
-                            .username(username)
-                            .score(r.getScore())
-                            .completedAt(r.getCompletedAt())
-                            .rank(rank)
-                            .build();
-                })
-                .collect(Collectors.toList());
-    }
-
     /**
      * ⭐ MÉTHODE CORRECTE - Progression utilisateur (UNIQUEMENT L'UTILISATEUR CONNECTÉ)
      */
     private QuizDetailDTO.UserQuizProgress buildUserProgress(Long quizId) {
         try {
-            User currentUser = getCurrentUser();
-            if (currentUser == null) {
+            Long userId = getCurrentUserId();
+            if (userId == null) {
                 System.out.println("⚠️ Aucun utilisateur connecté");
                 return QuizDetailDTO.UserQuizProgress.builder()
                         .hasAttempted(false)
@@ -311,17 +225,8 @@ public class QuizService {
                         .build();
             }
 
-            System.out.println("========================================");
-            System.out.println("👤 PROGRESSION UTILISATEUR");
-            System.out.println("   User ID: " + currentUser.getId());
-            System.out.println("   Username: " + currentUser.getUsername());
-            System.out.println("========================================");
-
             // ⭐ FILTRER UNIQUEMENT PAR L'UTILISATEUR CONNECTÉ
-            List<QuizResult> userResults = quizResultRepository.findByUserIdAndQuizId(
-                    currentUser.getId(),
-                    quizId
-            );
+            List<QuizResult> userResults = quizResultRepository.findByUserIdAndQuizId(userId, quizId);
 
             System.out.println("📊 Résultats pour CET utilisateur: " + userResults.size());
 
@@ -421,6 +326,19 @@ public class QuizService {
         return dto;
     }
 
+    /**
+     * Id de l'utilisateur connecté (email → id servi depuis le cache de progression)
+     */
+    private Long getCurrentUserId() {
+        try {
+            String email = SecurityContextHolder.getContext().getAuthentication().getName();
+            return progressSnapshotCache.userIdFor(email,
+                    e -> userRepository.findByEmail(e).map(User::getId).orElse(null));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * Récupérer l'utilisateur connecté
      */
@@ -1,21 +1,36 @@
 package com.example.service;
 
 import com.example.dto.*;
+import com.example.event.ProgressEvent;
 import com.example.model.*;
 import com.example.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class QuizSessionService {
+
+    private static final String INSERT_ANSWER_SQL =
+            "INSERT INTO user_answers (session_id, question_id, user_answer, is_correct, points_earned, " +
+            "time_spent_seconds, answered_at, attempt_count) VALUES (?, ?, ?, ?, ?, ?, ?, 1)";
+
+    private static final String UPDATE_ANSWER_SQL =
+            "UPDATE user_answers SET user_answer = ?, is_correct = ?, points_earned = ?, " +
+            "time_spent_seconds = ?, attempt_count = COALESCE(attempt_count, 0) + 1 WHERE id = ?";
+
     @Autowired
-    private ProgressService progressService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProgressEventBus progressEventBus;
 
     @Autowired
     private QuizRepository quizRepository;
@@ -26,9 +41,6 @@ public class QuizSessionService {
     @Autowired
     private QuestionRepository questionRepository;
 
-    @Autowired
-    private AnswerOptionRepository answerOptionRepository;
-
     @Autowired
     private UserAnswerRepository userAnswerRepository;
 
@@ -38,6 +50,18 @@ public class QuizSessionService {
     @Autowired
     private QuizResultRepository quizResultRepository;
 
+    @Autowired
+    private QuizSnapshotCache quizSnapshotCache;
+
+    @Autowired
+    private QuizSessionStore quizSessionStore;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private QuestionAnalyticsService questionAnalyticsService;
+
     /**
      * Démarrer une nouvelle session de quiz
      */
@@ -48,11 +72,10 @@ public class QuizSessionService {
             throw new RuntimeException("Utilisateur non authentifié");
         }
 
-        // Vérifier si le quiz existe et est actif
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new RuntimeException("Quiz non trouvé"));
+        // Vérifier si le quiz existe et est actif (contenu servi depuis le cache)
+        QuizSnapshot snapshot = quizSnapshotCache.get(quizId);
 
-        if (!quiz.getIsActive()) {
+        if (!snapshot.active()) {
             throw new RuntimeException("Ce quiz n'est plus disponible");
         }
 
@@ -65,6 +88,7 @@ public class QuizSessionService {
 
             // ⭐ Si la session est expirée, la marquer comme terminée et en créer une nouvelle
             if (session.getExpiresAt() != null && LocalDateTime.now().isAfter(session.getExpiresAt())) {
+                quizSessionStore.drainInto(session);
                 session.setIsExpired(true);
                 session.setIsCompleted(true);
                 session.setCompletedAt(LocalDateTime.now());
@@ -81,34 +105,29 @@ public class QuizSessionService {
         // Créer une nouvelle session
         QuizSession session = QuizSession.builder()
                 .user(currentUser)
-                .quiz(quiz)
+                .quiz(quizRepository.getReferenceById(quizId))
                 .startedAt(LocalDateTime.now())
                 .currentQuestionIndex(0)
                 .timeSpentSeconds(0)
                 .currentScore(0)
+                .answeredCount(0)
+                .correctCount(0)
+                .questionPoints(new LinkedHashMap<>())
                 .isCompleted(false)
                 .isExpired(false)
                 .build();
 
         // Calculer l'expiration si le quiz a une durée limitée
-        if (quiz.getDurationMinutes() != null && quiz.getDurationMinutes() > 0) {
-            session.setExpiresAt(LocalDateTime.now().plusMinutes(quiz.getDurationMinutes()));
+        if (snapshot.durationMinutes() != null && snapshot.durationMinutes() > 0) {
+            session.setExpiresAt(LocalDateTime.now().plusMinutes(snapshot.durationMinutes()));
         }
 
+        // Total de points possibles pré-calculé dans le snapshot
+        session.setTotalPointsPossible(snapshot.totalPoints());
         session = sessionRepository.save(session);
 
-        // Récupérer les questions
-        List<Question> questions = questionRepository.findByQuizId(quizId);
-
-        // Calculer le total de points possibles
-        int totalPoints = questions.stream()
-                .mapToInt(q -> q.getPoints() != null ? q.getPoints() : 1)
-                .sum();
-        session.setTotalPointsPossible(totalPoints);
-        sessionRepository.save(session);
-
         // Convertir en DTO
-        return buildSessionDTO(session, questions, new HashMap<>(), 0);
+        return buildSessionDTO(session, snapshot, new HashMap<>(), 0);
     }
 
     /**
@@ -116,6 +135,9 @@ public class QuizSessionService {
      */
     @Transactional
     public QuizSessionDTO resumeQuiz(Long sessionId) {
+        // Écrire d'abord les réponses en mémoire pour relire un état à jour
+        quizSessionStore.flush(sessionId);
+
         QuizSession session = sessionRepository.findById(sessionId)
                 .orElseThrow(() -> new RuntimeException("Session non trouvée"));
 
@@ -130,6 +152,7 @@ public class QuizSessionService {
 
         // Vérifier l'expiration
         if (session.getExpiresAt() != null && LocalDateTime.now().isAfter(session.getExpiresAt())) {
+            quizSessionStore.drainInto(session);
             session.setIsExpired(true);
             session.setIsCompleted(true);
             session.setCompletedAt(LocalDateTime.now());
@@ -144,8 +167,8 @@ public class QuizSessionService {
             throw new RuntimeException("Cette session a expiré. Score obtenu: " + scorePercentage + "%");
         }
 
-        // Récupérer les questions
-        List<Question> questions = questionRepository.findByQuizId(session.getQuiz().getId());
+        // Questions depuis le cache (l'id du proxy quiz ne déclenche pas de chargement)
+        QuizSnapshot snapshot = quizSnapshotCache.get(session.getQuiz().getId());
 
         // Récupérer les réponses déjà données
         List<UserAnswer> userAnswers = userAnswerRepository.findBySessionId(sessionId);
@@ -155,7 +178,7 @@ public class QuizSessionService {
                         UserAnswer::getUserAnswer
                 ));
 
-        return buildSessionDTO(session, questions, savedAnswers, session.getTimeSpentSeconds());
+        return buildSessionDTO(session, snapshot, savedAnswers, session.getTimeSpentSeconds());
     }
 
     /**
@@ -163,6 +186,11 @@ public class QuizSessionService {
      */
     @Transactional
     public AnswerFeedbackDTO submitAnswer(SubmitAnswerDTO submitDTO) {
+        if (quizSessionStore.isEnabled()) {
+            // Session active en mémoire : écriture différée par lot
+            return quizSessionStore.submitAnswer(submitDTO);
+        }
+
         QuizSession session = sessionRepository.findById(submitDTO.getSessionId())
                 .orElseThrow(() -> new RuntimeException("Session non trouvée"));
 
@@ -170,23 +198,36 @@ public class QuizSessionService {
             throw new RuntimeException("Cette session est déjà terminée");
         }
 
-        Question question = questionRepository.findById(submitDTO.getQuestionId())
-                .orElseThrow(() -> new RuntimeException("Question non trouvée"));
+        // Correction en mémoire : la question doit appartenir au quiz de la session
+        QuizSnapshot snapshot = quizSnapshotCache.get(session.getQuiz().getId());
+        AnswerKey answerKey = snapshot.answerKey();
+        int questionIndex = submitDTO.getQuestionId() != null ? answerKey.indexOf(submitDTO.getQuestionId()) : -1;
+        if (questionIndex < 0) {
+            throw new RuntimeException("Question non trouvée");
+        }
+        boolean isCorrect = answerKey.isCorrect(questionIndex, submitDTO.getAnswer());
+        int pointsEarned = answerKey.pointsEarned(questionIndex, isCorrect);
+
+        ensureScoreCounters(session);
 
         // Vérifier si la réponse a déjà été donnée
         Optional<UserAnswer> existingAnswer = userAnswerRepository
                 .findBySessionIdAndQuestionId(submitDTO.getSessionId(), submitDTO.getQuestionId());
+        QuestionAnalyticsService.AnswerSample previousSample = null;
 
         if (existingAnswer.isPresent()) {
             // Mettre à jour la réponse existante
             UserAnswer answer = existingAnswer.get();
+            boolean wasCorrect = Boolean.TRUE.equals(answer.getIsCorrect());
+            previousSample = new QuestionAnalyticsService.AnswerSample(
+                    answer.getUserAnswer(), wasCorrect, answer.getTimeSpentSeconds());
+            applyScoreDelta(session, submitDTO.getQuestionId(), pointsEarned,
+                    (isCorrect ? 1 : 0) - (wasCorrect ? 1 : 0), false);
             answer.setUserAnswer(submitDTO.getAnswer());
             answer.setTimeSpentSeconds(submitDTO.getTimeSpentSeconds());
 
-            // Évaluer la réponse
-            boolean isCorrect = evaluateAnswer(question, submitDTO.getAnswer());
             answer.setIsCorrect(isCorrect);
-            answer.setPointsEarned(isCorrect ? (question.getPoints() != null ? question.getPoints() : 1) : 0);
+            answer.setPointsEarned(pointsEarned);
 
             // Incrémenter le nombre de tentatives
             answer.setAttemptCount(answer.getAttemptCount() != null ? answer.getAttemptCount() + 1 : 1);
@@ -195,14 +236,12 @@ public class QuizSessionService {
             userAnswerRepository.save(answer);
         } else {
             // Créer une nouvelle réponse
-            boolean isCorrect = evaluateAnswer(question, submitDTO.getAnswer());
-            int pointsEarned = isCorrect ? (question.getPoints() != null ? question.getPoints() : 1) : 0;
-
+            applyScoreDelta(session, submitDTO.getQuestionId(), pointsEarned, isCorrect ? 1 : 0, true);
             System.out.println("📝 Création d'une nouvelle réponse - Correcte: " + isCorrect + ", Points: " + pointsEarned);
 
             UserAnswer answer = UserAnswer.builder()
                     .session(session)
-                    .question(question)
+                    .question(questionRepository.getReferenceById(submitDTO.getQuestionId()))
                     .userAnswer(submitDTO.getAnswer())
                     .isCorrect(isCorrect)
                     .pointsEarned(pointsEarned)
@@ -220,37 +259,140 @@ public class QuizSessionService {
             }
         }
 
-        // Mettre à jour le temps passé et le score de la session
+        // Mettre à jour le temps passé (le score a été ajusté par delta)
         session.setTimeSpentSeconds(session.getTimeSpentSeconds() + submitDTO.getTimeSpentSeconds());
-
-        // Recalculer le score total
-        int totalScore = userAnswerRepository.findBySessionId(session.getId())
-                .stream()
-                .mapToInt(UserAnswer::getPointsEarned)
-                .sum();
-        session.setCurrentScore(totalScore);
-
         sessionRepository.save(session);
 
-        // Compter les questions répondues
-        long questionsAnswered = userAnswerRepository.countBySessionId(session.getId());
-        long totalQuestions = questionRepository.countByQuizId(session.getQuiz().getId());
+        questionAnalyticsService.record(session.getQuiz().getId(), snapshot.question(submitDTO.getQuestionId()),
+                previousSample, new QuestionAnalyticsService.AnswerSample(
+                        submitDTO.getAnswer(), isCorrect, submitDTO.getTimeSpentSeconds()));
 
-        // Construire le feedback
-        boolean isCorrect = evaluateAnswer(question, submitDTO.getAnswer());
-        String correctAnswer = getCorrectAnswer(question);
+        int totalScore = session.getCurrentScore();
+        long questionsAnswered = session.getAnsweredCount();
+        long totalQuestions = snapshot.questionCount();
 
+        // Construire le feedback
         return AnswerFeedbackDTO.builder()
+                .questionId(submitDTO.getQuestionId())
                 .isCorrect(isCorrect)
-                .correctAnswer(correctAnswer)
-                .explanation(question.getExplanation())
-                .pointsEarned(isCorrect ? (question.getPoints() != null ? question.getPoints() : 1) : 0)
+                .correctAnswer(answerKey.correctAnswerText(questionIndex))
+                .explanation(snapshot.question(submitDTO.getQuestionId()).explanation())
+                .pointsEarned(pointsEarned)
                 .currentScore(totalScore)
                 .questionsAnswered((int) questionsAnswered)
                 .totalQuestions((int) totalQuestions)
                 .build();
     }
 
+    /**
+     * Soumettre plusieurs réponses en une requête (réseau mobile instable, mode hors ligne)
+     * Correction en un passage, écriture en deux lots JDBC, finalisation optionnelle
+     * dans la même transaction
+     */
+    @Transactional
+    public BulkAnswerResultDTO submitAnswers(BulkSubmitAnswersDTO bulkDTO) {
+        QuizSession session = sessionRepository.findById(bulkDTO.getSessionId())
+                .orElseThrow(() -> new RuntimeException("Session non trouvée"));
+
+        User currentUser = getCurrentUser();
+        if (currentUser == null || !session.getUser().getId().equals(currentUser.getId())) {
+            throw new RuntimeException("Accès non autorisé à cette session");
+        }
+        if (session.getIsCompleted()) {
+            throw new RuntimeException("Cette session est déjà terminée");
+        }
+        quizSessionStore.drainInto(session);
+
+        QuizSnapshot snapshot = quizSnapshotCache.get(session.getQuiz().getId());
+        AnswerKey answerKey = snapshot.answerKey();
+
+        // Une seule réponse par question : la dernière l'emporte, les temps s'additionnent
+        Map<Long, BulkAnswerItemDTO> answers = new LinkedHashMap<>();
+        int timeSpent = 0;
+        if (bulkDTO.getAnswers() != null) {
+            for (BulkAnswerItemDTO item : bulkDTO.getAnswers()) {
+                if (item.getQuestionId() == null || answerKey.indexOf(item.getQuestionId()) < 0) {
+                    throw new RuntimeException("Question non trouvée: " + item.getQuestionId());
+                }
+                answers.put(item.getQuestionId(), item);
+                timeSpent += item.getTimeSpentSeconds() != null ? item.getTimeSpentSeconds() : 0;
+            }
+        }
+
+        ensureScoreCounters(session);
+
+        // Réponses déjà enregistrées : questionId → {id, isCorrect, userAnswer, timeSpentSeconds}
+        Map<Long, Object[]> existing = new HashMap<>();
+        for (Object[] row : userAnswerRepository.findAnswerStatesBySessionId(session.getId())) {
+            existing.put((Long) row[0], row);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<AnswerFeedbackDTO> feedback = new ArrayList<>(answers.size());
+
+        for (BulkAnswerItemDTO item : answers.values()) {
+            int index = answerKey.indexOf(item.getQuestionId());
+            boolean isCorrect = answerKey.isCorrect(index, item.getAnswer());
+            int pointsEarned = answerKey.pointsEarned(index, isCorrect);
+
+            Object[] previous = existing.get(item.getQuestionId());
+            if (previous != null) {
+                boolean wasCorrect = Boolean.TRUE.equals(previous[2]);
+                applyScoreDelta(session, item.getQuestionId(), pointsEarned,
+                        (isCorrect ? 1 : 0) - (wasCorrect ? 1 : 0), false);
+                updates.add(new Object[]{item.getAnswer(), isCorrect, pointsEarned,
+                        item.getTimeSpentSeconds(), previous[1]});
+                questionAnalyticsService.record(snapshot.quizId(), snapshot.question(item.getQuestionId()),
+                        new QuestionAnalyticsService.AnswerSample((String) previous[3], wasCorrect, (Integer) previous[4]),
+                        new QuestionAnalyticsService.AnswerSample(item.getAnswer(), isCorrect, item.getTimeSpentSeconds()));
+            } else {
+                applyScoreDelta(session, item.getQuestionId(), pointsEarned, isCorrect ? 1 : 0, true);
+                inserts.add(new Object[]{session.getId(), item.getQuestionId(), item.getAnswer(), isCorrect,
+                        pointsEarned, item.getTimeSpentSeconds(), now});
+                questionAnalyticsService.record(snapshot.quizId(), snapshot.question(item.getQuestionId()), null,
+                        new QuestionAnalyticsService.AnswerSample(item.getAnswer(), isCorrect, item.getTimeSpentSeconds()));
+            }
+
+            feedback.add(AnswerFeedbackDTO.builder()
+                    .questionId(item.getQuestionId())
+                    .isCorrect(isCorrect)
+                    .correctAnswer(answerKey.correctAnswerText(index))
+                    .explanation(snapshot.question(item.getQuestionId()).explanation())
+                    .pointsEarned(pointsEarned)
+                    .build());
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ANSWER_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ANSWER_SQL, updates);
+        }
+
+        session.setTimeSpentSeconds(session.getTimeSpentSeconds() + timeSpent);
+        sessionRepository.save(session);
+
+        System.out.println("📦 Réponses groupées enregistrées - Session: " + session.getId() +
+                ", " + inserts.size() + " nouvelles, " + updates.size() + " modifiées");
+
+        QuizResult result = null;
+        if (Boolean.TRUE.equals(bulkDTO.getComplete())) {
+            result = completeQuiz(session.getId());
+        }
+
+        return BulkAnswerResultDTO.builder()
+                .sessionId(session.getId())
+                .feedback(feedback)
+                .currentScore(session.getCurrentScore())
+                .questionsAnswered(session.getAnsweredCount())
+                .totalQuestions(snapshot.questionCount())
+                .completed(result != null)
+                .result(result)
+                .build();
+    }
+
     /**
      * Terminer le quiz et calculer le résultat final
      */
@@ -273,13 +415,12 @@ public class QuizSessionService {
         }
 
         try {
-            // Compter les réponses correctes
-            List<UserAnswer> userAnswers = userAnswerRepository.findBySessionId(sessionId);
-            long correctAnswersCount = userAnswers.stream()
-                    .filter(ua -> ua.getIsCorrect() != null && ua.getIsCorrect())
-                    .count();
+            // Réponses correctes depuis les compteurs de la session (état en mémoire reporté d'abord)
+            quizSessionStore.drainInto(session);
+            ensureScoreCounters(session);
+            long correctAnswersCount = session.getCorrectCount();
 
-            long totalQuestions = questionRepository.countByQuizId(session.getQuiz().getId());
+            long totalQuestions = quizSnapshotCache.get(session.getQuiz().getId()).questionCount();
 
             // Calculer le score en pourcentage
             int scorePercentage = 0;
@@ -330,7 +471,10 @@ public class QuizSessionService {
                     .build();
 
             result = quizResultRepository.save(result);
-            progressService.updateProgressAfterQuiz(result);
+            // Statistiques et classement du quiz mis à jour par delta après le commit
+            quizStatsService.recordResult(result);
+            // XP, streak et statistiques appliqués en arrière-plan après le commit
+            progressEventBus.publish(new ProgressEvent.QuizCompleted(session.getUser().getId(), result.getId()));
             System.out.println("✅ Résultat sauvegardé - ID: " + result.getId());
 
             return result;
@@ -343,107 +487,66 @@ public class QuizSessionService {
     }
 
     /**
-     * Construire le DTO de session
-     */
-    private QuizSessionDTO buildSessionDTO(QuizSession session, List<Question> questions,
-                                           Map<Long, String> savedAnswers, Integer timeSpentSeconds) {
-        List<QuestionDTO> questionDTOs = questions.stream()
-                .map(this::convertToQuestionDTO)
-                .collect(Collectors.toList());
-
-        return QuizSessionDTO.builder()
-                .sessionId(session.getId())
-                .quizId(session.getQuiz().getId())
-                .quizTitle(session.getQuiz().getTitle())
-                .totalQuestions(questions.size())
-                .durationMinutes(session.getQuiz().getDurationMinutes())
-                .startedAt(session.getStartedAt())
-                .expiresAt(session.getExpiresAt())
-                .questions(questionDTOs)
-                .currentQuestionIndex(session.getCurrentQuestionIndex())
-                .savedAnswers(savedAnswers)
-                .timeSpentSeconds(timeSpentSeconds)
-                .build();
-    }
-
-    /**
-     * Convertir Question en QuestionDTO
+     * Ajuster le score de la session par delta pour une réponse créée ou modifiée
      */
-    private QuestionDTO convertToQuestionDTO(Question question) {
-        QuestionDTO dto = QuestionDTO.builder()
-                .id(question.getId())
-                .questionText(question.getQuestionText())
-                .type(question.getType())
-                .imageUrl(question.getImageUrl())
-                .points(question.getPoints())
-                .orderNumber(question.getOrderNumber())
-                .build();
-
-        // Ajouter les options pour les QCM
-        if ("QCM".equalsIgnoreCase(question.getType()) || "MULTIPLE_CHOICE".equalsIgnoreCase(question.getType())) {
-            List<AnswerOption> options = answerOptionRepository.findByQuestionIdOrderByOrderNumber(question.getId());
-            dto.setOptions(options.stream()
-                    .map(opt -> QuestionDTO.AnswerOptionDTO.builder()
-                            .id(opt.getId())
-                            .optionText(opt.getOptionText())
-                            .optionLetter(opt.getOptionLetter())
-                            .build())
-                    .collect(Collectors.toList()));
+    private void applyScoreDelta(QuizSession session, Long questionId, int pointsEarned,
+                                 int correctDelta, boolean newAnswer) {
+        // Modifiée sur place : le contrôle de modification d'Hibernate compare au contenu chargé
+        Integer previous = session.getQuestionPoints().put(questionId, pointsEarned);
+        int pointsDelta = pointsEarned - (previous != null ? previous : 0);
+
+        session.setCurrentScore(session.getCurrentScore() + pointsDelta);
+        session.setCorrectCount(session.getCorrectCount() + correctDelta);
+        if (newAnswer) {
+            session.setAnsweredCount(session.getAnsweredCount() + 1);
         }
-
-        return dto;
     }
 
     /**
-     * Évaluer si une réponse est correcte
+     * Sessions créées avant les compteurs : les reconstruire une seule fois
+     * depuis les réponses enregistrées
      */
-    private boolean evaluateAnswer(Question question, String userAnswer) {
-        String type = question.getType().toUpperCase();
-
-        switch (type) {
-            case "QCM":
-            case "MULTIPLE_CHOICE":
-                // Vérifier si l'option choisie est correcte
-                try {
-                    Long optionId = Long.parseLong(userAnswer);
-                    AnswerOption option = answerOptionRepository.findById(optionId).orElse(null);
-                    return option != null && option.getIsCorrect();
-                } catch (NumberFormatException e) {
-                    return false;
-                }
-
-            case "VRAI_FAUX":
-            case "TRUE_FALSE":
-                // Comparer avec la bonne réponse stockée
-                List<AnswerOption> options = answerOptionRepository.findByQuestionId(question.getId());
-                return options.stream()
-                        .filter(AnswerOption::getIsCorrect)
-                        .anyMatch(opt -> opt.getOptionText().equalsIgnoreCase(userAnswer));
-
-            case "REPONSE_COURTE":
-            case "SHORT_ANSWER":
-                // Comparaison simple (peut être améliorée)
-                List<AnswerOption> correctAnswers = answerOptionRepository.findByQuestionId(question.getId());
-                return correctAnswers.stream()
-                        .anyMatch(opt -> opt.getOptionText().equalsIgnoreCase(userAnswer.trim()));
-
-            default:
-                return false;
+    private void ensureScoreCounters(QuizSession session) {
+        if (session.getQuestionPoints() != null
+                && session.getAnsweredCount() != null
+                && session.getCorrectCount() != null) {
+            return;
         }
+        Map<Long, Integer> points = new LinkedHashMap<>();
+        int score = 0;
+        int correct = 0;
+        for (UserAnswer answer : userAnswerRepository.findBySessionId(session.getId())) {
+            int earned = answer.getPointsEarned() != null ? answer.getPointsEarned() : 0;
+            points.put(answer.getQuestion().getId(), earned);
+            score += earned;
+            if (Boolean.TRUE.equals(answer.getIsCorrect())) {
+                correct++;
+            }
+        }
+        session.setQuestionPoints(points);
+        session.setCurrentScore(score);
+        session.setAnsweredCount(points.size());
+        session.setCorrectCount(correct);
     }
 
     /**
-     * Récupérer la bonne réponse
+     * Construire le DTO de session
      */
-    private String getCorrectAnswer(Question question) {
-        List<AnswerOption> options = answerOptionRepository.findByQuestionId(question.getId());
-        return options.stream()
-                .filter(AnswerOption::getIsCorrect)
-                .map(opt -> opt.getOptionLetter() != null ?
-                        opt.getOptionLetter() + ". " + opt.getOptionText() :
-                        opt.getOptionText())
-                .findFirst()
-                .orElse("Non disponible");
+    private QuizSessionDTO buildSessionDTO(QuizSession session, QuizSnapshot snapshot,
+                                           Map<Long, String> savedAnswers, Integer timeSpentSeconds) {
+        return QuizSessionDTO.builder()
+                .sessionId(session.getId())
+                .quizId(snapshot.quizId())
+                .quizTitle(snapshot.title())
+                .totalQuestions(snapshot.questionCount())
+                .durationMinutes(snapshot.durationMinutes())
+                .startedAt(session.getStartedAt())
+                .expiresAt(session.getExpiresAt())
+                .questions(snapshot.questionDTOs())
+                .currentQuestionIndex(session.getCurrentQuestionIndex())
+                .savedAnswers(savedAnswers)
+                .timeSpentSeconds(timeSpentSeconds)
+                .build();
     }
 
     /**
@@ -459,7 +562,8 @@ public class QuizSessionService {
             throw new RuntimeException("Accès non autorisé à cette session");
         }
 
-        // Supprimer les réponses associées
+        // Supprimer les réponses associées (et l'état en mémoire, sans l'écrire)
+        quizSessionStore.discard(sessionId);
         userAnswerRepository.deleteAll(userAnswerRepository.findBySessionId(sessionId));
 
         // Supprimer la session
@@ -0,0 +1,638 @@
+package com.example.service;
+
+import com.example.dto.AnswerFeedbackDTO;
+import com.example.dto.SubmitAnswerDTO;
+import com.example.model.QuestionPointsConverter;
+import com.example.model.QuizSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sessions de quiz actives en mémoire, persistées en write-behind
+ *
+ * Une réponse soumise ne modifie que l'état en mémoire de la session (réponses,
+ * score, compteurs) ; quiz_sessions et user_answers sont écrites par lots JDBC
+ * sur minuterie ou dès que le seuil de réponses en attente est atteint.
+ * Les chemins qui manipulent l'entité (reprise, soumission groupée, fin,
+ * expiration) vident d'abord l'état en mémoire dans leur propre transaction.
+ *
+ * L'upsert des réponses suppose la clé unique (session_id, question_id) : elle
+ * est vérifiée au démarrage (après la mise à jour du schéma), ajoutée si besoin
+ * après suppression des doublons, et le magasin est désactivé si elle manque.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class QuizSessionStore {
+
+    private static final String LOAD_SESSION_SQL =
+            "SELECT quiz_id, is_completed, time_spent_seconds FROM quiz_sessions WHERE id = ?";
+
+    private static final String LOAD_ANSWERS_SQL =
+            "SELECT question_id, user_answer, is_correct, points_earned, time_spent_seconds, answered_at, attempt_count " +
+            "FROM user_answers WHERE session_id = ?";
+
+    // Valeurs absolues : une écriture rejouée ou réordonnée reste correcte
+    private static final String SESSION_SQL =
+            "UPDATE quiz_sessions SET time_spent_seconds = ?, current_score = ?, answered_count = ?, " +
+            "correct_count = ?, question_points = ? WHERE id = ? AND is_completed = false";
+
+    private static final String ANSWER_SQL =
+            "INSERT INTO user_answers (session_id, question_id, user_answer, is_correct, points_earned, " +
+            "time_spent_seconds, answered_at, attempt_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE user_answer = VALUES(user_answer), is_correct = VALUES(is_correct), " +
+            "points_earned = VALUES(points_earned), time_spent_seconds = VALUES(time_spent_seconds), " +
+            "attempt_count = VALUES(attempt_count)";
+
+    private static final String UNIQUE_KEY_SQL =
+            "SELECT index_name FROM information_schema.statistics " +
+            "WHERE table_schema = DATABASE() AND table_name = 'user_answers' AND non_unique = 0 " +
+            "GROUP BY index_name HAVING GROUP_CONCAT(column_name ORDER BY seq_in_index) = 'session_id,question_id'";
+
+    // Doublons hérités de l'ancien chemin lecture-puis-insertion : la réponse la plus récente est gardée
+    private static final String DEDUPE_ANSWERS_SQL =
+            "DELETE older FROM user_answers older JOIN user_answers newer " +
+            "ON newer.session_id = older.session_id AND newer.question_id = older.question_id AND newer.id > older.id";
+
+    private static final String ADD_UNIQUE_KEY_SQL =
+            "ALTER TABLE user_answers ADD CONSTRAINT uk_user_answers_session_question UNIQUE (session_id, question_id)";
+
+    private static final QuestionPointsConverter POINTS_CONVERTER = new QuestionPointsConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private QuizSnapshotCache quizSnapshotCache;
+
+    @Autowired
+    private QuestionAnalyticsService questionAnalyticsService;
+
+    @Value("${quiz.session.store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.session.store.migrate-answer-key:true}")
+    private boolean migrateAnswerKey;
+
+    @Value("${quiz.session.store.max-pending:500}")
+    private int maxPending;
+
+    @Value("${quiz.session.store.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    private TransactionTemplate flushTransaction;
+
+    private final Map<Long, ActiveSession> sessions = new ConcurrentHashMap<>();
+    // Sessions en cours de fermeture par le balayage : ne peuvent plus être chargées en mémoire
+    private final Set<Long> sweeping = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingAnswers = new AtomicInteger();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "quiz-session-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (enabled && !ensureUniqueAnswerKey()) {
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Soumettre une réponse : correction et mise à jour du score en mémoire
+     * Seul le premier accès à une session la charge depuis la base
+     */
+    public AnswerFeedbackDTO submitAnswer(SubmitAnswerDTO submitDTO) {
+        Long sessionId = submitDTO.getSessionId();
+        Long questionId = submitDTO.getQuestionId();
+
+        while (true) {
+            ActiveSession entry = acquire(sessionId);
+
+            QuizSnapshot snapshot = quizSnapshotCache.get(entry.quizId);
+            AnswerKey answerKey = snapshot.answerKey();
+            int questionIndex = questionId != null ? answerKey.indexOf(questionId) : -1;
+            if (questionIndex < 0) {
+                throw new RuntimeException("Question non trouvée");
+            }
+            boolean isCorrect = answerKey.isCorrect(questionIndex, submitDTO.getAnswer());
+            int pointsEarned = answerKey.pointsEarned(questionIndex, isCorrect);
+
+            int currentScore;
+            int answeredCount;
+            QuestionAnalyticsService.AnswerSample previous;
+            synchronized (entry) {
+                if (entry.evicted) {
+                    // Évincée entre-temps : recharger depuis la base
+                    continue;
+                }
+                if (entry.closing) {
+                    throw new RuntimeException("Cette session est en cours de finalisation");
+                }
+                AnswerState state = entry.answers.get(questionId);
+                previous = state != null
+                        ? new QuestionAnalyticsService.AnswerSample(state.answer, state.correct, state.timeSpentSeconds)
+                        : null;
+                entry.apply(questionId, submitDTO.getAnswer(), isCorrect, pointsEarned,
+                        submitDTO.getTimeSpentSeconds());
+                currentScore = entry.currentScore;
+                answeredCount = entry.answers.size();
+            }
+
+            if (pendingAnswers.incrementAndGet() >= maxPending) {
+                triggerFlush();
+            }
+
+            questionAnalyticsService.record(entry.quizId, snapshot.question(questionId), previous,
+                    new QuestionAnalyticsService.AnswerSample(submitDTO.getAnswer(), isCorrect,
+                            submitDTO.getTimeSpentSeconds()));
+
+            return AnswerFeedbackDTO.builder()
+                    .questionId(questionId)
+                    .isCorrect(isCorrect)
+                    .correctAnswer(answerKey.correctAnswerText(questionIndex))
+                    .explanation(snapshot.question(questionId).explanation())
+                    .pointsEarned(pointsEarned)
+                    .currentScore(currentScore)
+                    .questionsAnswered(answeredCount)
+                    .totalQuestions(snapshot.questionCount())
+                    .build();
+        }
+    }
+
+    /**
+     * Reporter l'état en mémoire sur l'entité chargée et écrire les réponses
+     * en attente dans la transaction courante
+     * La session est retirée de la mémoire au commit ; en cas de rollback
+     * elle reste active avec ses écritures en attente.
+     */
+    public void drainInto(QuizSession session) {
+        if (!enabled || session.getId() == null) {
+            return;
+        }
+        ActiveSession entry = sessions.get(session.getId());
+        if (entry == null) {
+            return;
+        }
+
+        entry.flushLock.lock();
+        try {
+            List<Object[]> answers;
+            synchronized (entry) {
+                if (entry.evicted) {
+                    return;
+                }
+                entry.closing = true;
+                session.setTimeSpentSeconds(entry.timeSpentSeconds);
+                session.setCurrentScore(entry.currentScore);
+                session.setAnsweredCount(entry.answers.size());
+                session.setCorrectCount(entry.correctCount);
+                session.setQuestionPoints(entry.questionPoints());
+                answers = entry.dirtyAnswerRows();
+            }
+
+            if (!answers.isEmpty()) {
+                jdbcTemplate.batchUpdate(ANSWER_SQL, answers);
+            }
+        } finally {
+            entry.flushLock.unlock();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        evict(entry);
+                    } else {
+                        synchronized (entry) {
+                            entry.closing = false;
+                        }
+                    }
+                }
+            });
+        } else {
+            evict(entry);
+        }
+    }
+
+    /**
+     * Écrire immédiatement l'état d'une session (reprise) sans la retirer de la mémoire
+     */
+    public void flush(Long sessionId) {
+        if (!enabled) {
+            return;
+        }
+        ActiveSession entry = sessions.get(sessionId);
+        if (entry != null) {
+            entry.flushLock.lock();
+            try {
+                write(List.of(entry));
+            } finally {
+                entry.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Oublier une session supprimée sans rien écrire
+     */
+    public void discard(Long sessionId) {
+        ActiveSession entry = sessions.get(sessionId);
+        if (entry != null) {
+            evict(entry);
+        }
+    }
+
+    /**
+     * Écrire toutes les sessions modifiées par lot JDBC
+     * Les sessions inactives et déjà écrites sont évincées de la mémoire
+     */
+    @Scheduled(fixedDelayString = "${quiz.session.store.flush-interval-ms:3000}")
+    public void flush() {
+        flushScheduled.set(false);
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        long idleThreshold = System.currentTimeMillis() - idleEvictMs;
+        List<ActiveSession> locked = new ArrayList<>();
+        try {
+            for (ActiveSession entry : sessions.values()) {
+                synchronized (entry) {
+                    if (entry.evicted || entry.closing) {
+                        continue;
+                    }
+                    if (!entry.isDirty()) {
+                        if (entry.lastAccessMs < idleThreshold) {
+                            entry.evicted = true;
+                            sessions.remove(entry.sessionId, entry);
+                        }
+                        continue;
+                    }
+                }
+                // Une session en cours de vidage par un autre chemin sera reprise au prochain cycle
+                if (entry.flushLock.tryLock()) {
+                    locked.add(entry);
+                }
+            }
+
+            if (!locked.isEmpty()) {
+                pendingAnswers.set(0);
+                writeBatch(locked);
+            }
+        } finally {
+            for (ActiveSession entry : locked) {
+                entry.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Vider les sessions actives à l'arrêt de l'application
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Réserver des sessions pour le balayage : celles déjà actives en mémoire sont
+     * exclues, les autres ne peuvent plus être chargées jusqu'à releaseSweep
+     * (une soumission concurrente est refusée au lieu d'être perdue)
+     */
+    public List<Long> reserveForSweep(List<Long> sessionIds) {
+        List<Long> reserved = new ArrayList<>(sessionIds.size());
+        for (Long sessionId : sessionIds) {
+            // Marquer puis vérifier ; acquire fait l'inverse : l'un des deux voit l'autre
+            sweeping.add(sessionId);
+            if (sessions.containsKey(sessionId)) {
+                sweeping.remove(sessionId);
+            } else {
+                reserved.add(sessionId);
+            }
+        }
+        return reserved;
+    }
+
+    public void releaseSweep(List<Long> sessionIds) {
+        sessionIds.forEach(sweeping::remove);
+    }
+
+    public int getActiveCount() {
+        return sessions.size();
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    /**
+     * Écrire les sessions en un lot ; en cas d'échec, chaque session est réécrite seule
+     * pour qu'une ligne en erreur ne bloque pas les autres. Une session déjà en échec
+     * est ensuite écrite à part jusqu'à sa prochaine réussite.
+     */
+    private void writeBatch(List<ActiveSession> entries) {
+        List<ActiveSession> healthy = new ArrayList<>();
+        List<ActiveSession> isolated = new ArrayList<>();
+        for (ActiveSession entry : entries) {
+            (entry.writeFailures > 0 ? isolated : healthy).add(entry);
+        }
+
+        if (!healthy.isEmpty()) {
+            try {
+                write(healthy);
+                log.debug("💾 {} sessions de quiz écrites par lot", healthy.size());
+            } catch (Exception ex) {
+                log.warn("⚠️ Échec écriture par lot des sessions de quiz, reprise session par session: {}",
+                        ex.getMessage());
+                isolated.addAll(healthy);
+            }
+        }
+
+        for (ActiveSession entry : isolated) {
+            try {
+                write(List.of(entry));
+                entry.writeFailures = 0;
+            } catch (Exception ex) {
+                // Les versions ne sont pas avancées : nouvelle tentative au prochain cycle
+                entry.writeFailures++;
+                log.error("❌ Échec écriture de la session de quiz #{} ({} échecs consécutifs): {}",
+                        entry.sessionId, entry.writeFailures, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Vérifier (et au besoin créer) la clé unique dont dépend l'upsert des réponses
+     */
+    private boolean ensureUniqueAnswerKey() {
+        try {
+            if (!jdbcTemplate.queryForList(UNIQUE_KEY_SQL, String.class).isEmpty()) {
+                return true;
+            }
+            if (!migrateAnswerKey) {
+                log.error("❌ Clé unique (session_id, question_id) absente de user_answers: sessions en mémoire désactivées");
+                return false;
+            }
+            int removed = jdbcTemplate.update(DEDUPE_ANSWERS_SQL);
+            jdbcTemplate.execute(ADD_UNIQUE_KEY_SQL);
+            log.warn("🛠️ Clé unique (session_id, question_id) ajoutée à user_answers ({} doublons supprimés)", removed);
+            return true;
+        } catch (Exception e) {
+            log.error("❌ Clé unique de user_answers impossible à garantir, sessions en mémoire désactivées: {}",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    private ActiveSession acquire(Long sessionId) {
+        ActiveSession entry = sessions.get(sessionId);
+        if (entry != null) {
+            return entry;
+        }
+        if (sweeping.contains(sessionId)) {
+            throw new RuntimeException("Cette session a expiré");
+        }
+        ActiveSession loaded = load(sessionId);
+        ActiveSession existing = sessions.putIfAbsent(sessionId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        if (sweeping.contains(sessionId)) {
+            // Réservée par le balayage pendant le chargement : il la fermera
+            evict(loaded);
+            throw new RuntimeException("Cette session a expiré");
+        }
+        return loaded;
+    }
+
+    /**
+     * Charger une session et ses réponses (deux requêtes, sans entités)
+     * Le score est recalculé depuis les réponses, ce qui couvre les sessions antérieures aux compteurs
+     */
+    private ActiveSession load(Long sessionId) {
+        List<ActiveSession> found = jdbcTemplate.query(LOAD_SESSION_SQL, (rs, i) -> {
+            if (rs.getBoolean(2)) {
+                throw new RuntimeException("Cette session est déjà terminée");
+            }
+            return new ActiveSession(sessionId, rs.getLong(1), rs.getInt(3));
+        }, sessionId);
+        if (found.isEmpty()) {
+            throw new RuntimeException("Session non trouvée");
+        }
+
+        ActiveSession entry = found.get(0);
+        jdbcTemplate.query(LOAD_ANSWERS_SQL, rs -> {
+            AnswerState state = new AnswerState();
+            state.answer = rs.getString(2);
+            state.correct = rs.getBoolean(3);
+            state.points = rs.getInt(4);
+            state.timeSpentSeconds = (Integer) rs.getObject(5);
+            Timestamp answeredAt = rs.getTimestamp(6);
+            state.answeredAt = answeredAt != null ? answeredAt.toLocalDateTime() : LocalDateTime.now();
+            state.attemptCount = Math.max(1, rs.getInt(7));
+            entry.answers.put(rs.getLong(1), state);
+            entry.currentScore += state.points;
+            if (state.correct) {
+                entry.correctCount++;
+            }
+        }, sessionId);
+        return entry;
+    }
+
+    /**
+     * Écrire les sessions dans une transaction dédiée puis avancer leurs versions écrites
+     * L'appelant détient le flushLock de chaque session
+     */
+    private void write(List<ActiveSession> entries) {
+        List<Object[]> sessionRows = new ArrayList<>();
+        List<Object[]> answerRows = new ArrayList<>();
+        List<ActiveSession> written = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+
+        for (ActiveSession entry : entries) {
+            synchronized (entry) {
+                if (entry.evicted || entry.closing || !entry.isDirty()) {
+                    continue;
+                }
+                written.add(entry);
+                versions.add(entry.version);
+                sessionRows.add(new Object[]{
+                        entry.timeSpentSeconds,
+                        entry.currentScore,
+                        entry.answers.size(),
+                        entry.correctCount,
+                        POINTS_CONVERTER.convertToDatabaseColumn(entry.questionPoints()),
+                        entry.sessionId
+                });
+                answerRows.addAll(entry.dirtyAnswerRows());
+            }
+        }
+
+        if (sessionRows.isEmpty()) {
+            return;
+        }
+
+        flushTransaction.executeWithoutResult(status -> {
+            if (!answerRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(ANSWER_SQL, answerRows);
+            }
+            jdbcTemplate.batchUpdate(SESSION_SQL, sessionRows);
+        });
+
+        for (int i = 0; i < written.size(); i++) {
+            ActiveSession entry = written.get(i);
+            synchronized (entry) {
+                entry.flushedVersion = Math.max(entry.flushedVersion, versions.get(i));
+            }
+        }
+    }
+
+    private void evict(ActiveSession entry) {
+        synchronized (entry) {
+            entry.evicted = true;
+        }
+        sessions.remove(entry.sessionId, entry);
+    }
+
+    private void triggerFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    /**
+     * État d'une session active (protégé par synchronized sur l'instance ;
+     * flushLock sérialise les écritures en base d'une même session)
+     */
+    private static class ActiveSession {
+        final Long sessionId;
+        final Long quizId;
+        final Map<Long, AnswerState> answers = new LinkedHashMap<>();
+        final ReentrantLock flushLock = new ReentrantLock();
+        int timeSpentSeconds;
+        int currentScore;
+        int correctCount;
+        long version;
+        long flushedVersion;
+        long lastAccessMs = System.currentTimeMillis();
+        int writeFailures;  // Modifié sous flushLock
+        boolean closing;
+        boolean evicted;
+
+        ActiveSession(Long sessionId, Long quizId, int timeSpentSeconds) {
+            this.sessionId = sessionId;
+            this.quizId = quizId;
+            this.timeSpentSeconds = timeSpentSeconds;
+        }
+
+        boolean isDirty() {
+            return version > flushedVersion;
+        }
+
+        /**
+         * Même règles que le chemin synchrone : score et compteurs ajustés par delta
+         */
+        void apply(Long questionId, String answer, boolean correct, int points, Integer timeSpent) {
+            version++;
+            AnswerState state = answers.get(questionId);
+            if (state == null) {
+                state = new AnswerState();
+                state.answeredAt = LocalDateTime.now();
+                answers.put(questionId, state);
+            } else {
+                currentScore -= state.points;
+                if (state.correct) {
+                    correctCount--;
+                }
+                state.attemptCount++;
+            }
+            state.answer = answer;
+            state.correct = correct;
+            state.points = points;
+            state.timeSpentSeconds = timeSpent;
+            state.version = version;
+
+            currentScore += points;
+            if (correct) {
+                correctCount++;
+            }
+            timeSpentSeconds += timeSpent != null ? timeSpent : 0;
+            lastAccessMs = System.currentTimeMillis();
+        }
+
+        Map<Long, Integer> questionPoints() {
+            Map<Long, Integer> points = new LinkedHashMap<>();
+            answers.forEach((questionId, state) -> points.put(questionId, state.points));
+            return points;
+        }
+
+        List<Object[]> dirtyAnswerRows() {
+            List<Object[]> rows = new ArrayList<>();
+            answers.forEach((questionId, state) -> {
+                if (state.version > flushedVersion) {
+                    rows.add(new Object[]{
+                            sessionId,
+                            questionId,
+                            state.answer,
+                            state.correct,
+                            state.points,
+                            state.timeSpentSeconds,
+                            Timestamp.valueOf(state.answeredAt),
+                            state.attemptCount
+                    });
+                }
+            });
+            return rows;
+        }
+    }
+
+    private static class AnswerState {
+        String answer;
+        boolean correct;
+        int points;
+        Integer timeSpentSeconds;
+        LocalDateTime answeredAt;
+        int attemptCount = 1;
+        long version;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Balayage périodique des sessions de quiz expirées ou abandonnées
+ *
+ * Les sessions dépassant expires_at, ou démarrées depuis plus que la durée
+ * d'inactivité sans expiration, sont marquées terminées/expirées par petits
+ * lots, chacun dans sa propre transaction (verrous courts). Les réponses de ces
+ * sessions peuvent être archivées dans user_answers_archive, une fois le
+ * rattrapage de QuestionAnalyticsService terminé (sinon les réponses qu'il n'a
+ * pas encore lues ne seraient jamais comptées). Les sessions encore
+ * actives en mémoire sont laissées aux chemins synchrones ; les autres sont
+ * réservées dans QuizSessionStore pendant leur fermeture, ce qui refuse toute
+ * soumission concurrente au lieu de la perdre.
+ */
+@Component
+@Slf4j
+public class QuizSessionSweeper {
+
+    private static final String EXPIRED_IDS_SQL =
+            "SELECT id FROM quiz_sessions WHERE is_completed = false AND expires_at < ? " +
+            "ORDER BY expires_at LIMIT ?";
+
+    private static final String IDLE_IDS_SQL =
+            "SELECT id FROM quiz_sessions WHERE is_completed = false AND expires_at IS NULL AND started_at < ? " +
+            "ORDER BY started_at LIMIT ?";
+
+    private static final String CREATE_ARCHIVE_SQL =
+            "CREATE TABLE IF NOT EXISTS user_answers_archive LIKE user_answers";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private QuizSessionStore quizSessionStore;
+
+    @Autowired
+    private QuestionAnalyticsService questionAnalyticsService;
+
+    @Value("${quiz.session.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.session.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${quiz.session.sweeper.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${quiz.session.sweeper.idle-ttl-hours:72}")
+    private int idleTtlHours;
+
+    @Value("${quiz.session.sweeper.archive-answers:false}")
+    private boolean archiveAnswers;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder idleClosed = new LongAdder();
+    private final LongAdder skippedActive = new LongAdder();
+    private final LongAdder answersArchived = new LongAdder();
+    private final LongAdder archiveDeferred = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong lastRunMs = new AtomicLong();
+    private final AtomicLong lastBatchMs = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRunAt = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (enabled && archiveAnswers) {
+            jdbcTemplate.execute(CREATE_ARCHIVE_SQL);
+        }
+    }
+
+    /**
+     * Balayer les sessions expirées puis les sessions inactives
+     */
+    @Scheduled(initialDelayString = "${quiz.session.sweeper.interval-ms:300000}",
+            fixedDelayString = "${quiz.session.sweeper.interval-ms:300000}")
+    public void sweep() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Timestamp idleBefore = Timestamp.valueOf(LocalDateTime.now().minusHours(idleTtlHours));
+
+            // Historique pas encore agrégé : fermer les sessions sans déplacer leurs réponses
+            boolean archive = archiveAnswers && !questionAnalyticsService.isCatchUpPending();
+            if (archiveAnswers && !archive) {
+                archiveDeferred.increment();
+            }
+
+            int expiredCount = sweep(EXPIRED_IDS_SQL, now, expired, archive);
+            int idleCount = sweep(IDLE_IDS_SQL, idleBefore, idleClosed, archive);
+
+            runs.increment();
+            if (expiredCount + idleCount > 0) {
+                log.info("🧹 Sessions de quiz balayées: {} expirées, {} inactives en {} ms",
+                        expiredCount, idleCount, System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            failures.increment();
+            log.error("❌ Échec du balayage des sessions de quiz: {}", e.getMessage(), e);
+        } finally {
+            lastRunMs.set(System.currentTimeMillis() - start);
+            lastRunAt.set(LocalDateTime.now());
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("running", running.get());
+        metrics.put("runs", runs.sum());
+        metrics.put("expired", expired.sum());
+        metrics.put("idleClosed", idleClosed.sum());
+        metrics.put("skippedActive", skippedActive.sum());
+        metrics.put("answersArchived", answersArchived.sum());
+        metrics.put("archiveDeferred", archiveDeferred.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("lastRunMs", lastRunMs.get());
+        metrics.put("lastBatchMs", lastBatchMs.get());
+        metrics.put("lastRunAt", lastRunAt.get());
+        return metrics;
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    /**
+     * Traiter au plus maxBatches lots de sessions sélectionnées par l'index
+     */
+    private int sweep(String selectSql, Timestamp threshold, LongAdder counter, boolean archive) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Long> ids = jdbcTemplate.queryForList(selectSql, Long.class, threshold, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // Sessions actives en mémoire : écritures en attente, traitées par le chemin synchrone ;
+            // les autres sont réservées pour ne pas être rechargées pendant leur fermeture
+            List<Long> sweepable = quizSessionStore.reserveForSweep(ids);
+            skippedActive.add(ids.size() - sweepable.size());
+
+            if (!sweepable.isEmpty()) {
+                try {
+                    long start = System.currentTimeMillis();
+                    int closed = closeBatch(sweepable, archive);
+                    lastBatchMs.set(System.currentTimeMillis() - start);
+                    counter.add(closed);
+                    total += closed;
+                } finally {
+                    quizSessionStore.releaseSweep(sweepable);
+                }
+            }
+
+            if (ids.size() < batchSize || sweepable.isEmpty()) {
+                // Dernier lot, ou lot entièrement actif : reprendre au prochain passage
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Marquer un lot de sessions terminées/expirées (et archiver leurs réponses) en une transaction
+     */
+    private int closeBatch(List<Long> ids, boolean archive) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] params = ids.toArray();
+
+        Integer closed = transactionTemplate.execute(status -> {
+            Object[] updateParams = new Object[ids.size() + 1];
+            updateParams[0] = Timestamp.valueOf(LocalDateTime.now());
+            System.arraycopy(params, 0, updateParams, 1, params.length);
+
+            int updated = jdbcTemplate.update(
+                    "UPDATE quiz_sessions SET is_completed = true, is_expired = true, completed_at = ? " +
+                    "WHERE is_completed = false AND id IN (" + placeholders + ")", updateParams);
+
+            if (archive) {
+                int archived = jdbcTemplate.update(
+                        "INSERT IGNORE INTO user_answers_archive SELECT * FROM user_answers " +
+                        "WHERE session_id IN (" + placeholders + ")", params);
+                jdbcTemplate.update("DELETE FROM user_answers WHERE session_id IN (" + placeholders + ")", params);
+                answersArchived.add(archived);
+            }
+            return updated;
+        });
+        return closed != null ? closed : 0;
+    }
+}
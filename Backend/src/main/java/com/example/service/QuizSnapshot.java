@@ -0,0 +1,54 @@
+package com.example.service;
+
+import com.example.dto.QuestionDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contenu figé d'un quiz : métadonnées, questions, options et DTO pré-construits
+ *
+ * Immuable et partagé entre toutes les tentatives ; les QuestionDTO sont
+ * renvoyés tels quels et ne doivent pas être modifiés. Le corrigé compilé
+ * (AnswerKey) accompagne le contenu et suit donc la même invalidation. La version est
+ * l'empreinte du contenu en base (QuestionRepository.findContentVersions).
+ */
+public record QuizSnapshot(
+        Long quizId,
+        String version,
+        String title,
+        Integer durationMinutes,
+        Integer xpReward,
+        boolean active,
+        List<QuestionContent> questions,
+        Map<Long, QuestionContent> questionsById,
+        List<QuestionDTO> questionDTOs,
+        int totalPoints,
+        AnswerKey answerKey) {
+
+    public QuestionContent question(Long questionId) {
+        return questionsById.get(questionId);
+    }
+
+    public int questionCount() {
+        return questions.size();
+    }
+
+    public record QuestionContent(
+            Long id,
+            String type,
+            String questionText,
+            String explanation,
+            int points,
+            Integer orderNumber,
+            List<OptionContent> options) {
+    }
+
+    public record OptionContent(
+            Long id,
+            String optionText,
+            String optionLetter,
+            boolean correct,
+            Integer orderNumber) {
+    }
+}
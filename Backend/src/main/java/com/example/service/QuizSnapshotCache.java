@@ -0,0 +1,193 @@
+package com.example.service;
+
+import com.example.dto.QuestionDTO;
+import com.example.model.AnswerOption;
+import com.example.model.Question;
+import com.example.model.Quiz;
+import com.example.repository.AnswerOptionRepository;
+import com.example.repository.QuestionRepository;
+import com.example.repository.QuizRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache des contenus de quiz (QuizSnapshot) par id de quiz
+ *
+ * Démarrer ou reprendre un quiz ne relit plus questions et options : le
+ * contenu est chargé une fois (2 requêtes, options en lot) puis servi depuis
+ * la mémoire. Une vérification périodique compare la version de chaque quiz
+ * en cache (empreinte CRC32 du quiz, des questions et des options) à la base
+ * en une requête agrégée et évince ceux qui ont changé, y compris après une
+ * correction faite en SQL direct ; les entrées expirent en outre après ttl-minutes.
+ */
+@Component
+@Slf4j
+public class QuizSnapshotCache {
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerOptionRepository answerOptionRepository;
+
+    @Value("${quiz.snapshot.max-size:500}")
+    private long maxSize;
+
+    // Filet de sécurité en plus du contrôle des versions
+    @Value("${quiz.snapshot.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private Cache<Long, QuizSnapshot> snapshots;
+
+    @PostConstruct
+    public void init() {
+        snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Contenu d'un quiz (chargé au premier accès)
+     */
+    public QuizSnapshot get(Long quizId) {
+        return snapshots.get(quizId, this::load);
+    }
+
+    /**
+     * À appeler après toute modification du contenu d'un quiz
+     */
+    public void invalidate(Long quizId) {
+        snapshots.invalidate(quizId);
+    }
+
+    public void clear() {
+        snapshots.invalidateAll();
+    }
+
+    /**
+     * Évincer les quiz dont le contenu a changé en base
+     */
+    @Scheduled(initialDelayString = "${quiz.snapshot.check-interval-ms:60000}",
+            fixedDelayString = "${quiz.snapshot.check-interval-ms:60000}")
+    public void checkVersions() {
+        if (snapshots.estimatedSize() == 0) {
+            return;
+        }
+        Map<Long, String> current = new HashMap<>();
+        for (Object[] row : questionRepository.findContentVersions()) {
+            current.put(toLong(row[0]), (String) row[1]);
+        }
+
+        int evicted = 0;
+        for (QuizSnapshot snapshot : snapshots.asMap().values()) {
+            if (!snapshot.version().equals(current.get(snapshot.quizId()))) {
+                snapshots.invalidate(snapshot.quizId());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("🔄 {} contenus de quiz modifiés évincés du cache", evicted);
+        }
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private QuizSnapshot load(Long quizId) {
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new RuntimeException("Quiz non trouvé"));
+
+        // Version lue avant le contenu : une modification concurrente sera vue au prochain contrôle
+        String version = questionRepository.findContentVersion(quizId).stream()
+                .map(row -> (String) row[1])
+                .findFirst()
+                .orElse("");
+        List<Question> questions = questionRepository.findByQuizId(quizId);
+
+        // Toutes les options du quiz en une requête, regroupées par question
+        Map<Long, List<AnswerOption>> optionsByQuestion = new HashMap<>();
+        if (!questions.isEmpty()) {
+            List<Long> questionIds = questions.stream().map(Question::getId).toList();
+            for (AnswerOption option : answerOptionRepository.findByQuestionIdInOrderByOrderNumber(questionIds)) {
+                optionsByQuestion.computeIfAbsent(option.getQuestion().getId(), id -> new ArrayList<>()).add(option);
+            }
+        }
+
+        List<QuizSnapshot.QuestionContent> contents = new ArrayList<>(questions.size());
+        Map<Long, QuizSnapshot.QuestionContent> byId = new LinkedHashMap<>();
+        List<QuestionDTO> dtos = new ArrayList<>(questions.size());
+        int totalPoints = 0;
+        int optionCount = 0;
+
+        for (Question question : questions) {
+            List<AnswerOption> options = optionsByQuestion.getOrDefault(question.getId(), List.of());
+            List<QuizSnapshot.OptionContent> optionContents = new ArrayList<>(options.size());
+            for (AnswerOption option : options) {
+                optionContents.add(new QuizSnapshot.OptionContent(option.getId(), option.getOptionText(),
+                        option.getOptionLetter(), Boolean.TRUE.equals(option.getIsCorrect()), option.getOrderNumber()));
+                optionCount++;
+            }
+
+            int points = question.getPoints() != null ? question.getPoints() : 1;
+            QuizSnapshot.QuestionContent content = new QuizSnapshot.QuestionContent(question.getId(),
+                    question.getType(), question.getQuestionText(), question.getExplanation(), points,
+                    question.getOrderNumber(), List.copyOf(optionContents));
+            contents.add(content);
+            byId.put(question.getId(), content);
+            dtos.add(toDTO(question, options));
+            totalPoints += points;
+        }
+
+        log.info("📦 Contenu du quiz {} mis en cache: {} questions, {} options", quizId, questions.size(), optionCount);
+
+        return new QuizSnapshot(quizId, version, quiz.getTitle(), quiz.getDurationMinutes(), quiz.getXpReward(),
+                Boolean.TRUE.equals(quiz.getIsActive()), List.copyOf(contents), Collections.unmodifiableMap(byId),
+                List.copyOf(dtos), totalPoints, AnswerKey.compile(contents));
+    }
+
+    /**
+     * QuestionDTO tel que l'envoyait convertToQuestionDTO (options seulement pour les QCM)
+     */
+    private static QuestionDTO toDTO(Question question, List<AnswerOption> options) {
+        QuestionDTO dto = QuestionDTO.builder()
+                .id(question.getId())
+                .questionText(question.getQuestionText())
+                .type(question.getType())
+                .imageUrl(question.getImageUrl())
+                .points(question.getPoints())
+                .orderNumber(question.getOrderNumber())
+                .build();
+
+        if ("QCM".equalsIgnoreCase(question.getType()) || "MULTIPLE_CHOICE".equalsIgnoreCase(question.getType())) {
+            dto.setOptions(options.stream()
+                    .map(opt -> QuestionDTO.AnswerOptionDTO.builder()
+                            .id(opt.getId())
+                            .optionText(opt.getOptionText())
+                            .optionLetter(opt.getOptionLetter())
+                            .build())
+                    .toList());
+        }
+        return dto;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.service;
+
+import com.example.dto.QuizDetailDTO;
+import com.example.model.QuizResult;
+import com.example.model.QuizScoreCount;
+import com.example.model.QuizStats;
+import com.example.model.QuizTopScore;
+import com.example.repository.QuizScoreCountRepository;
+import com.example.repository.QuizStatsRepository;
+import com.example.repository.QuizTopScoreRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistiques et classement par quiz, maintenus incrémentalement
+ *
+ * Chaque résultat enregistré ajoute ses compteurs à quiz_stats et à
+ * l'histogramme des scores par upserts atomiques, après le commit de
+ * l'appelant et dans sa propre transaction (les lignes partagées du quiz ne
+ * restent pas verrouillées pendant la fin du quiz) ; il n'entre dans
+ * quiz_top_scores que s'il fait partie des K meilleurs. Un résultat sans score
+ * compte comme tentative mais n'entre ni dans l'histogramme ni dans le top,
+ * comme lors de la reprise de l'historique. Le détail d'un quiz lit une ligne, l'histogramme (≤ 101 lignes)
+ * et le top, au lieu de recharger tous les QuizResult.
+ */
+@Service
+@Slf4j
+public class QuizStatsService {
+
+    private static final String STATS_UPSERT_SQL =
+            "INSERT INTO quiz_stats (quiz_id, attempts, completed_attempts, score_sum, time_sum_minutes, timed_attempts) " +
+            "VALUES (?, 1, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "attempts = attempts + 1, " +
+            "completed_attempts = completed_attempts + VALUES(completed_attempts), " +
+            "score_sum = score_sum + VALUES(score_sum), " +
+            "time_sum_minutes = time_sum_minutes + VALUES(time_sum_minutes), " +
+            "timed_attempts = timed_attempts + VALUES(timed_attempts)";
+
+    private static final String HISTOGRAM_UPSERT_SQL =
+            "INSERT INTO quiz_score_histogram (quiz_id, score, result_count) VALUES (?, ?, 1) " +
+            "ON DUPLICATE KEY UPDATE result_count = result_count + 1";
+
+    private static final String TOP_BOUNDS_SQL =
+            "SELECT COUNT(*), COALESCE(MIN(score), 0) FROM quiz_top_scores WHERE quiz_id = ?";
+
+    private static final String TOP_INSERT_SQL =
+            "INSERT INTO quiz_top_scores (quiz_id, result_id, user_id, username, score, completed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Ne garder que les K meilleurs (ex æquo : le plus ancien d'abord, comme l'ancien classement)
+    private static final String TOP_TRIM_SQL =
+            "DELETE FROM quiz_top_scores WHERE quiz_id = ? AND id NOT IN (" +
+            "SELECT id FROM (SELECT id FROM quiz_top_scores WHERE quiz_id = ? " +
+            "ORDER BY score DESC, completed_at ASC, result_id ASC LIMIT ?) kept)";
+
+    // Reprise de l'historique lors de la création des tables
+    private static final String STATS_BACKFILL_SQL =
+            "INSERT INTO quiz_stats (quiz_id, attempts, completed_attempts, score_sum, time_sum_minutes, timed_attempts) " +
+            "SELECT quiz_id, COUNT(*), COUNT(completed_at), COALESCE(SUM(score), 0), " +
+            "COALESCE(SUM(time_spent_minutes), 0), COUNT(time_spent_minutes) " +
+            "FROM quiz_results GROUP BY quiz_id";
+
+    private static final String HISTOGRAM_BACKFILL_SQL =
+            "INSERT INTO quiz_score_histogram (quiz_id, score, result_count) " +
+            "SELECT quiz_id, score, COUNT(*) FROM quiz_results WHERE score IS NOT NULL GROUP BY quiz_id, score";
+
+    private static final String TOP_BACKFILL_SQL =
+            "INSERT INTO quiz_top_scores (quiz_id, result_id, user_id, username, score, completed_at) " +
+            "SELECT quiz_id, id, user_id, username, score, completed_at FROM (" +
+            "SELECT r.quiz_id, r.id, r.user_id, COALESCE(u.nom, '') AS username, r.score, r.completed_at, " +
+            "ROW_NUMBER() OVER (PARTITION BY r.quiz_id ORDER BY r.score DESC, r.completed_at ASC, r.id ASC) AS position " +
+            "FROM quiz_results r JOIN users u ON u.id = r.user_id " +
+            "WHERE r.score IS NOT NULL AND r.completed_at IS NOT NULL) ranked " +
+            "WHERE position <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuizStatsRepository quizStatsRepository;
+
+    @Autowired
+    private QuizScoreCountRepository scoreCountRepository;
+
+    @Autowired
+    private QuizTopScoreRepository topScoreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${quiz.stats.top-size:20}")
+    private int topSize;
+
+    private TransactionTemplate statsTransaction;
+
+    @PostConstruct
+    public void init() {
+        statsTransaction = new TransactionTemplate(transactionManager);
+        statsTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Initialiser les agrégats à partir des résultats existants si les tables sont vides
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (quizStatsRepository.count() > 0) {
+            return;
+        }
+        int quizzes = jdbcTemplate.update(STATS_BACKFILL_SQL);
+        if (quizzes == 0) {
+            return;
+        }
+        jdbcTemplate.update(HISTOGRAM_BACKFILL_SQL);
+        jdbcTemplate.update(TOP_BACKFILL_SQL, topSize);
+        log.info("📊 Statistiques par quiz initialisées depuis quiz_results: {} quiz", quizzes);
+    }
+
+    /**
+     * Ajouter un résultat aux agrégats de son quiz
+     * Dans une transaction, appliqué seulement après son commit, dans une transaction dédiée
+     */
+    public void recordResult(QuizResult result) {
+        // Valeurs lues maintenant : l'entité n'est plus gérée après le commit
+        RecordedResult recorded = new RecordedResult(result.getQuiz().getId(), result.getId(),
+                result.getUser().getId(), result.getUser().getUsername(), result.getScore(),
+                result.getTimeSpentMinutes(), result.getCompletedAt());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        statsTransaction.executeWithoutResult(status -> apply(recorded));
+                    } catch (Exception e) {
+                        log.error("❌ Statistiques du quiz {} non mises à jour pour le résultat #{}: {}",
+                                recorded.quizId(), recorded.resultId(), e.getMessage());
+                    }
+                }
+            });
+        } else {
+            statsTransaction.executeWithoutResult(status -> apply(recorded));
+        }
+    }
+
+    /**
+     * Statistiques globales d'un quiz depuis sa ligne d'agrégats
+     */
+    public QuizDetailDTO.QuizStatistics getStatistics(Long quizId) {
+        QuizStats stats = quizStatsRepository.findById(quizId).orElse(null);
+        if (stats == null || stats.getAttempts() == 0) {
+            return QuizDetailDTO.QuizStatistics.builder()
+                    .totalAttempts(0)
+                    .averageScore(0.0)
+                    .completionRate(0)
+                    .averageTimeMinutes(0.0)
+                    .build();
+        }
+
+        return QuizDetailDTO.QuizStatistics.builder()
+                .totalAttempts(stats.getAttempts().intValue())
+                .averageScore((double) stats.getScoreSum() / stats.getAttempts())
+                .completionRate((int) ((stats.getCompletedAttempts() * 100.0) / stats.getAttempts()))
+                .averageTimeMinutes(stats.getTimedAttempts() > 0
+                        ? (double) stats.getTimeSumMinutes() / stats.getTimedAttempts()
+                        : 0.0)
+                .build();
+    }
+
+    /**
+     * Top 5 d'un quiz ; rang = 1 + nombre de résultats ayant un score strictement supérieur
+     */
+    public List<QuizDetailDTO.LeaderboardEntry> getTopScores(Long quizId) {
+        List<QuizTopScore> top = topScoreRepository.findTop5ByQuizIdOrderByScoreDescCompletedAtAscResultIdAsc(quizId);
+        if (top.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        long[] countByScore = new long[102];
+        for (QuizScoreCount count : scoreCountRepository.findByQuizId(quizId)) {
+            int score = Math.max(0, Math.min(100, count.getScore()));
+            countByScore[score] += count.getResultCount();
+        }
+        // above[s] = nombre de résultats dont le score est > s
+        long[] above = new long[102];
+        for (int s = 100; s >= 0; s--) {
+            above[s] = above[s + 1] + countByScore[s + 1];
+        }
+
+        List<QuizDetailDTO.LeaderboardEntry> entries = new ArrayList<>(top.size());
+        for (QuizTopScore entry : top) {
+            int score = Math.max(0, Math.min(100, entry.getScore()));
+            entries.add(QuizDetailDTO.LeaderboardEntry.builder()
+                    .username(entry.getUsername() != null ? entry.getUsername() : "Anonyme")
+                    .score(entry.getScore())
+                    .completedAt(entry.getCompletedAt())
+                    .rank((int) above[score] + 1)
+                    .build());
+        }
+        return entries;
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private void apply(RecordedResult result) {
+        Long quizId = result.quizId();
+        Integer minutes = result.timeSpentMinutes();
+
+        // Score absent : compté comme tentative (0 dans la somme, comme SUM qui ignore NULL)
+        jdbcTemplate.update(STATS_UPSERT_SQL, quizId,
+                result.completedAt() != null ? 1 : 0,
+                result.score() != null ? result.score() : 0,
+                minutes != null ? minutes : 0,
+                minutes != null ? 1 : 0);
+
+        if (result.score() == null) {
+            return;
+        }
+        int score = result.score();
+        jdbcTemplate.update(HISTOGRAM_UPSERT_SQL, quizId, score);
+
+        if (result.completedAt() == null) {
+            return;
+        }
+
+        // Top-K borné : insertion seulement si le résultat y a sa place
+        Object[] bounds = jdbcTemplate.queryForObject(TOP_BOUNDS_SQL,
+                (rs, i) -> new Object[]{rs.getLong(1), rs.getInt(2)}, quizId);
+        long size = (Long) bounds[0];
+        int minScore = (Integer) bounds[1];
+        if (size >= topSize && score <= minScore) {
+            return;
+        }
+
+        jdbcTemplate.update(TOP_INSERT_SQL, quizId, result.resultId(), result.userId(),
+                result.username(), score, Timestamp.valueOf(result.completedAt()));
+        if (size + 1 > topSize) {
+            jdbcTemplate.update(TOP_TRIM_SQL, quizId, quizId, topSize);
+        }
+    }
+
+    private record RecordedResult(Long quizId, Long resultId, Long userId, String username, Integer score,
+                                  Integer timeSpentMinutes, LocalDateTime completedAt) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation de texte pour la recherche (français / anglais)
+ * - minuscules et suppression des accents (é → e, œ → oe)
+ * - découpage sur tout caractère non alphanumérique
+ * - suppression des mots vides et racinisation légère des pluriels
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            // Français
+            "le", "la", "les", "l", "un", "une", "des", "de", "du", "d", "et", "ou", "en",
+            "a", "au", "aux", "pour", "par", "sur", "dans", "avec", "sans", "ce", "ces",
+            "cet", "cette", "son", "sa", "ses", "qui", "que", "qu", "est", "sont", "se", "s",
+            // Anglais
+            "the", "an", "of", "and", "or", "to", "in", "on", "for", "with", "is", "are",
+            "at", "by", "from", "as", "it", "its", "be", "this", "that"
+    );
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Minuscules + suppression des accents et ligatures
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT)
+                .replace("œ", "oe")
+                .replace("æ", "ae")
+                .replace("ß", "ss");
+        return DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Découper un texte en termes indexables (mots vides retirés, pluriels ramenés au singulier)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String raw : SEPARATORS.split(fold(text))) {
+            if (raw.isEmpty() || STOP_WORDS.contains(raw)) {
+                continue;
+            }
+            tokens.add(stem(raw));
+        }
+        return tokens;
+    }
+
+    /**
+     * Racinisation légère : pluriels français et anglais
+     */
+    static String stem(String token) {
+        int length = token.length();
+        if (length <= 3 || Character.isDigit(token.charAt(length - 1))) {
+            return token;
+        }
+        if (token.endsWith("eaux")) {
+            return token.substring(0, length - 1);       // gâteaux → gateau
+        }
+        if (token.endsWith("aux") && length > 4) {
+            return token.substring(0, length - 3) + "al"; // journaux → journal
+        }
+        if (token.endsWith("ies") && length > 4) {
+            return token.substring(0, length - 3) + "y";  // probabilities → probability
+        }
+        if (token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, length - 1);       // équations → equation
+        }
+        return token;
+    }
+}
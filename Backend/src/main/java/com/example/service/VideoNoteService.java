@@ -1,9 +1,11 @@
 package com.example.service;
 
 import com.example.dto.AddXpResponse;
+import com.example.dto.CursorPage;
 import com.example.dto.video.VideoNoteDTO;
 import com.example.dto.video.VideoNoteRequest;
 import com.example.dto.video.VideoNoteResponse;
+import com.example.event.ProgressEvent;
 import com.example.model.User;
 import com.example.model.Video;
 import com.example.model.VideoNote;
@@ -11,6 +13,7 @@ import com.example.repository.UserRepository;
 import com.example.repository.VideoNoteRepository;
 import com.example.repository.VideoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -35,9 +38,15 @@ public class VideoNoteService {
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private ProgressEventBus progressEventBus;
+
     // 🎯 CONSTANTE XP
     private static final int XP_NOTE_ADDED = 10;
 
+    // Plafond de la liste non paginée : utiliser getUserNotesPage au-delà
+    private static final int MAX_UNPAGED_NOTES = 200;
+
     /**
      * Récupérer l'utilisateur connecté
      */
@@ -67,6 +76,14 @@ public class VideoNoteService {
      */
     @Transactional
     public VideoNoteResponse addNote(Long videoId, VideoNoteRequest request) {
+        return addNote(videoId, request, null);
+    }
+
+    /**
+     * Ajouter une note ; la clé d'idempotence du client évite de créditer deux fois un renvoi
+     */
+    @Transactional
+    public VideoNoteResponse addNote(Long videoId, VideoNoteRequest request, String idempotencyKey) {
         User user = getCurrentUser();
         Video video = videoRepository.findById(videoId)
                 .orElseThrow(() -> new RuntimeException("Vidéo non trouvée"));
@@ -80,13 +97,12 @@ public class VideoNoteService {
 
         note = noteRepository.save(note);
 
-        // 🎯 AJOUTER XP
+        // 🎯 AJOUTER XP (appliqué en arrière-plan après le commit)
         log.info("📝 Note ajoutée - Attribution de {} XP", XP_NOTE_ADDED);
-        AddXpResponse xpResponse = progressService.addXp(
-            XP_NOTE_ADDED,
-            "Note ajoutée sur vidéo: " + video.getTitle(),
-            "NOTE_ADDED"
-        );
+        String xpKey = idempotencyKey != null ? idempotencyKey : String.valueOf(note.getId());
+        AddXpResponse xpResponse = progressService.previewXp(user, XP_NOTE_ADDED, "NOTE_ADDED:" + xpKey);
+        progressEventBus.publish(new ProgressEvent.NoteAdded(
+            user.getId(), note.getId(), video.getTitle(), XP_NOTE_ADDED, xpKey));
 
         return VideoNoteResponse.builder()
                 .note(convertToDTO(note))
@@ -137,13 +153,39 @@ public class VideoNoteService {
      */
     public List<VideoNoteDTO> getAllUserNotes() {
         User user = getCurrentUser();
-        List<VideoNote> notes = noteRepository.findByUserOrderByCreatedAtDesc(user);
+        List<VideoNote> notes = noteRepository.findByUserOrderByCreatedAtDesc(user, PageRequest.of(0, MAX_UNPAGED_NOTES));
 
         return notes.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Notes de l'utilisateur paginées par curseur (createdAt, id)
+     */
+    public CursorPage<VideoNoteDTO> getUserNotesPage(String cursor, Integer size) {
+        User user = getCurrentUser();
+        int pageSize = CursorCodec.pageSize(size);
+        CursorCodec.Decoded after = CursorCodec.decode(cursor);
+
+        List<VideoNote> notes = noteRepository.findPageByUserId(user.getId(),
+                after != null ? after.asDateTime() : CursorCodec.FIRST_DATE_TIME,
+                after != null ? after.getId() : CursorCodec.FIRST_ID_DESC,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = notes.size() > pageSize;
+        if (hasNext) {
+            notes = notes.subList(0, pageSize);
+        }
+        VideoNote last = hasNext ? notes.get(notes.size() - 1) : null;
+
+        return CursorPage.<VideoNoteDTO>builder()
+                .items(notes.stream().map(this::convertToDTO).collect(Collectors.toList()))
+                .hasNext(hasNext)
+                .nextCursor(last != null ? CursorCodec.encode(last.getCreatedAt(), last.getId()) : null)
+                .build();
+    }
+
     /**
      * Convertir VideoNote en DTO
      */
@@ -0,0 +1,319 @@
+package com.example.service;
+
+import com.example.dto.video.VideoProgressRequest;
+import com.example.dto.video.VideoProgressResponse;
+import com.example.model.VideoProgress;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tampon write-behind pour les battements de progression vidéo
+ *
+ * Le lecteur envoie la position toutes les 10 secondes : on garde la dernière
+ * position par (utilisateur, vidéo) en mémoire et on l'écrit dans video_progress
+ * par lots JDBC, sur minuterie ou dès que le seuil de lignes en attente est atteint.
+ * Les complétions ne passent jamais par ce tampon (traitées par VideoService).
+ */
+@Component
+@Slf4j
+public class VideoProgressBuffer {
+
+    private static final String FLUSH_SQL =
+            "UPDATE video_progress SET last_timestamp = ?, progress_percentage = ?, " +
+            "watch_count = ?, last_watched_at = ?, updated_at = ? " +
+            // Ne jamais écraser une ligne réécrite entre-temps par le chemin synchrone
+            "WHERE id = ? AND last_watched_at <= ?";
+
+    // Délai pendant lequel une complétion réclamée reste mémorisée (le commit est alors visible en base)
+    private static final long COMPLETION_CLAIM_TTL_MS = 10 * 60 * 1000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${video.progress.buffer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.progress.buffer.max-pending:1000}")
+    private int maxPending;
+
+    private final Map<Key, PendingProgress> pending = new ConcurrentHashMap<>();
+    private final Map<Key, Long> completionClaims = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "video-progress-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Absorber un battement en mémoire
+     * Retourne null si la requête doit passer par le chemin synchrone
+     * (entrée absente, première écriture ou complétion)
+     */
+    public VideoProgressResponse tryAbsorb(Long userId, Long videoId, VideoProgressRequest request) {
+        if (!enabled || request.getCurrentTimestamp() == null) {
+            return null;
+        }
+
+        PendingProgress entry = pending.get(new Key(userId, videoId));
+        if (entry == null) {
+            return null;
+        }
+
+        VideoProgress snapshot;
+        synchronized (entry) {
+            if (entry.evicted || (!entry.completed && entry.wouldComplete(request))) {
+                return null;
+            }
+            entry.apply(request.getCurrentTimestamp());
+            snapshot = entry.toSnapshot();
+        }
+
+        triggerFlushIfFull();
+
+        return VideoProgressResponse.builder()
+                .progress(snapshot)
+                .videoCompleted(false)
+                .milestoneReached(false)
+                .build();
+    }
+
+    /**
+     * Retirer l'entrée en attente et reporter son état plus récent sur l'entité chargée
+     * Appelé par le chemin synchrone avant de modifier la progression
+     */
+    public void drainInto(VideoProgress progress) {
+        if (!enabled || progress.getId() == null) {
+            return;
+        }
+
+        PendingProgress entry = pending.remove(new Key(progress.getUser().getId(), progress.getVideo().getId()));
+        if (entry == null) {
+            return;
+        }
+
+        synchronized (entry) {
+            entry.evicted = true;
+            if (entry.dirty) {
+                progress.setLastTimestamp(entry.lastTimestamp);
+                progress.setProgressPercentage(entry.progressPercentage);
+                progress.setWatchCount(entry.watchCount);
+                progress.setLastWatchedAt(entry.lastWatchedAt);
+            }
+        }
+    }
+
+    /**
+     * Enregistrer l'état persisté d'une progression comme base des prochains battements
+     * Une entrée déjà présente (battements plus récents) est conservée.
+     * Dans une transaction, l'entrée n'est ajoutée qu'au commit (pas de ligne fantôme après rollback).
+     */
+    public void seed(VideoProgress progress, Integer videoDuration) {
+        if (!enabled || progress.getId() == null) {
+            return;
+        }
+
+        Key key = new Key(progress.getUser().getId(), progress.getVideo().getId());
+        PendingProgress entry = new PendingProgress(progress, videoDuration);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.putIfAbsent(key, entry);
+                }
+            });
+        } else {
+            pending.putIfAbsent(key, entry);
+        }
+    }
+
+    /**
+     * Réserver l'attribution de la complétion pour (utilisateur, vidéo)
+     * Retourne false si une autre requête l'a déjà réservée : garantit un seul XP par complétion
+     */
+    public boolean claimCompletion(Long userId, Long videoId) {
+        return completionClaims.putIfAbsent(new Key(userId, videoId), System.currentTimeMillis()) == null;
+    }
+
+    /**
+     * Libérer une réservation de complétion (échec de la sauvegarde)
+     */
+    public void releaseCompletion(Long userId, Long videoId) {
+        completionClaims.remove(new Key(userId, videoId));
+    }
+
+    /**
+     * Écrire toutes les positions en attente par lot JDBC
+     * Les entrées inchangées depuis la précédente écriture sont évincées de la mémoire
+     */
+    @Scheduled(fixedDelayString = "${video.progress.buffer.flush-interval-ms:5000}")
+    public void flush() {
+        flushScheduled.set(false);
+        if (pending.isEmpty()) {
+            pruneCompletionClaims();
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        List<PendingProgress> written = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (Map.Entry<Key, PendingProgress> e : pending.entrySet()) {
+            PendingProgress entry = e.getValue();
+            synchronized (entry) {
+                if (entry.evicted) {
+                    continue;
+                }
+                if (!entry.dirty) {
+                    // Aucun battement depuis la dernière écriture : libérer la mémoire
+                    entry.evicted = true;
+                    pending.remove(e.getKey(), entry);
+                    continue;
+                }
+                batch.add(new Object[]{
+                        entry.lastTimestamp,
+                        entry.progressPercentage,
+                        entry.watchCount,
+                        Timestamp.valueOf(entry.lastWatchedAt),
+                        now,
+                        entry.progressId,
+                        Timestamp.valueOf(entry.lastWatchedAt)
+                });
+                written.add(entry);
+                versions.add(entry.version);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                for (int i = 0; i < written.size(); i++) {
+                    PendingProgress entry = written.get(i);
+                    synchronized (entry) {
+                        if (entry.version == versions.get(i)) {
+                            entry.dirty = false;
+                        }
+                    }
+                }
+                log.debug("💾 {} progressions vidéo écrites par lot", batch.size());
+            } catch (Exception ex) {
+                // Les entrées restent marquées dirty : nouvelle tentative au prochain cycle
+                log.error("❌ Échec écriture par lot des progressions vidéo: {}", ex.getMessage());
+            }
+        }
+
+        pruneCompletionClaims();
+    }
+
+    /**
+     * Vider le tampon à l'arrêt de l'application
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void triggerFlushIfFull() {
+        if (pending.size() >= maxPending && flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    private void pruneCompletionClaims() {
+        long threshold = System.currentTimeMillis() - COMPLETION_CLAIM_TTL_MS;
+        completionClaims.values().removeIf(claimedAt -> claimedAt < threshold);
+    }
+
+    private record Key(Long userId, Long videoId) {
+    }
+
+    /**
+     * Dernier état connu d'une progression (protégé par synchronized sur l'instance)
+     */
+    private static class PendingProgress {
+        final Long progressId;
+        final Integer videoDuration;
+        final boolean completed;
+        Integer lastTimestamp;
+        Double progressPercentage;
+        Integer watchCount;
+        LocalDateTime lastWatchedAt;
+        long version;
+        boolean dirty;
+        boolean evicted;
+
+        PendingProgress(VideoProgress progress, Integer videoDuration) {
+            this.progressId = progress.getId();
+            this.videoDuration = videoDuration;
+            this.completed = Boolean.TRUE.equals(progress.getCompleted());
+            this.lastTimestamp = progress.getLastTimestamp();
+            this.progressPercentage = progress.getProgressPercentage();
+            this.watchCount = progress.getWatchCount();
+            this.lastWatchedAt = progress.getLastWatchedAt() != null ? progress.getLastWatchedAt() : LocalDateTime.now();
+        }
+
+        boolean wouldComplete(VideoProgressRequest request) {
+            if (Boolean.TRUE.equals(request.getCompleted())) {
+                return true;
+            }
+            if (videoDuration == null || videoDuration == 0) {
+                return false;
+            }
+            return (request.getCurrentTimestamp() * 100.0) / videoDuration >= 90.0;
+        }
+
+        /**
+         * Même règles que VideoProgress.updateProgress, sans la complétion
+         */
+        void apply(Integer currentTimestamp) {
+            if (videoDuration == null || videoDuration == 0) {
+                return;
+            }
+            lastTimestamp = currentTimestamp;
+            double percentage = (currentTimestamp.doubleValue() / videoDuration.doubleValue()) * 100.0;
+            progressPercentage = Math.min(100.0, Math.max(0.0, percentage));
+            if (currentTimestamp < 30) {
+                watchCount++;
+            }
+            lastWatchedAt = LocalDateTime.now();
+            version++;
+            dirty = true;
+        }
+
+        VideoProgress toSnapshot() {
+            return VideoProgress.builder()
+                    .id(progressId)
+                    .lastTimestamp(lastTimestamp)
+                    .progressPercentage(progressPercentage)
+                    .completed(completed)
+                    .watchCount(watchCount)
+                    .lastWatchedAt(lastWatchedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.service;
+
+import com.example.repository.VideoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Classements pré-calculés par catégorie pour les recommandations
+ *
+ * Remplace le findAll() + filtre Java de VideoService.getRecommendations :
+ * pour chaque (catégorie, difficulté) on garde les N meilleures vidéos
+ * (popularité + fraîcheur), recalculées en tâche de fond. Une recommandation
+ * n'est plus qu'une fusion des listes des centres d'intérêt de l'utilisateur.
+ */
+@Component
+@Slf4j
+public class VideoRecommendationIndex {
+
+    private static final int TOP_PER_BUCKET = 50;
+
+    // Poids du score : popularité logarithmique + fraîcheur (demi-vie ~3 semaines)
+    private static final double FAVORITE_WEIGHT = 3.0;
+    private static final double RECENCY_WEIGHT = 2.0;
+    private static final double RECENCY_DECAY_DAYS = 30.0;
+
+    // Bonus des vidéos dont la difficulté correspond au niveau de l'utilisateur
+    private static final double DIFFICULTY_BONUS = 1.5;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private VideoViewCounter viewCounter;
+
+    // catégorie → difficulté → vidéos classées ; remplacé en bloc à chaque reconstruction
+    private volatile Map<String, Map<String, List<RankedVideo>>> buckets = new HashMap<>();
+
+    /**
+     * Reconstruire les classements au démarrage puis périodiquement
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${video.recommendations.refresh-interval-ms:600000}",
+            fixedDelayString = "${video.recommendations.refresh-interval-ms:600000}")
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Map<String, PriorityQueue<RankedVideo>>> building = new HashMap<>();
+
+        // Projection légère (pas d'entités) : id, catégorie, difficulté, vues, favoris, création
+        for (Object[] row : videoRepository.findRankingRows()) {
+            Long videoId = (Long) row[0];
+            String category = (String) row[1];
+            String difficulty = (String) row[2];
+            long views = viewCounter.currentCount(videoId, (Integer) row[3]);
+            int favorites = row[4] != null ? (Integer) row[4] : 0;
+            LocalDateTime createdAt = toDateTime(row[5]);
+
+            double score = Math.log1p(views + FAVORITE_WEIGHT * favorites);
+            if (createdAt != null) {
+                double ageDays = Math.max(0, Duration.between(createdAt, now).toHours() / 24.0);
+                score += RECENCY_WEIGHT * Math.exp(-ageDays / RECENCY_DECAY_DAYS);
+            }
+
+            // Tas minimum borné : on ne garde que les N meilleurs par compartiment
+            PriorityQueue<RankedVideo> heap = building
+                    .computeIfAbsent(category, c -> new HashMap<>())
+                    .computeIfAbsent(difficulty, d -> new PriorityQueue<>(TOP_PER_BUCKET + 1));
+            heap.offer(new RankedVideo(videoId, score));
+            if (heap.size() > TOP_PER_BUCKET) {
+                heap.poll();
+            }
+        }
+
+        Map<String, Map<String, List<RankedVideo>>> built = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<String, Map<String, PriorityQueue<RankedVideo>>> category : building.entrySet()) {
+            Map<String, List<RankedVideo>> byDifficulty = new HashMap<>();
+            for (Map.Entry<String, PriorityQueue<RankedVideo>> bucket : category.getValue().entrySet()) {
+                List<RankedVideo> ranked = new ArrayList<>(bucket.getValue());
+                ranked.sort((a, b) -> b.compareTo(a));
+                byDifficulty.put(bucket.getKey(), List.copyOf(ranked));
+                total += ranked.size();
+            }
+            built.put(category.getKey(), byDifficulty);
+        }
+        buckets = built;
+        log.info("🎯 Index de recommandations construit: {} catégories, {} vidéos classées", built.size(), total);
+    }
+
+    public void clear() {
+        buckets = new HashMap<>();
+    }
+
+    /**
+     * Candidats classés pour un ensemble de catégories
+     * Fusion k-voies des compartiments : coût proportionnel à max, pas au catalogue
+     */
+    public List<Long> candidates(Collection<String> categories, String preferredDifficulty, int max) {
+        Map<String, Map<String, List<RankedVideo>>> snapshot = buckets;
+
+        PriorityQueue<Cursor> merge = new PriorityQueue<>();
+        for (String category : categories) {
+            Map<String, List<RankedVideo>> byDifficulty = snapshot.get(category);
+            if (byDifficulty == null) {
+                continue;
+            }
+            for (Map.Entry<String, List<RankedVideo>> bucket : byDifficulty.entrySet()) {
+                double bonus = bucket.getKey() != null && bucket.getKey().equals(preferredDifficulty)
+                        ? DIFFICULTY_BONUS : 0;
+                if (!bucket.getValue().isEmpty()) {
+                    merge.offer(new Cursor(bucket.getValue(), bonus));
+                }
+            }
+        }
+
+        Set<Long> result = new LinkedHashSet<>();
+        while (!merge.isEmpty() && result.size() < max) {
+            Cursor best = merge.poll();
+            result.add(best.current().videoId);
+            if (best.advance()) {
+                merge.offer(best);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Difficulté conseillée selon le niveau de l'utilisateur
+     */
+    public static String preferredDifficulty(Integer level) {
+        if (level == null || level <= 2) {
+            return "Facile";
+        }
+        return level <= 5 ? "Moyen" : "Difficile";
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return null;
+    }
+
+    private record RankedVideo(Long videoId, double score) implements Comparable<RankedVideo> {
+        @Override
+        public int compareTo(RankedVideo other) {
+            int cmp = Double.compare(score, other.score);
+            return cmp != 0 ? cmp : Long.compare(videoId, other.videoId);
+        }
+    }
+
+    /**
+     * Position courante dans un compartiment (ordre décroissant de score ajusté)
+     */
+    private static class Cursor implements Comparable<Cursor> {
+        private final List<RankedVideo> ranked;
+        private final double bonus;
+        private int position;
+
+        Cursor(List<RankedVideo> ranked, double bonus) {
+            this.ranked = ranked;
+            this.bonus = bonus;
+        }
+
+        RankedVideo current() {
+            return ranked.get(position);
+        }
+
+        double score() {
+            return current().score + bonus;
+        }
+
+        boolean advance() {
+            return ++position < ranked.size();
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Double.compare(other.score(), score());
+        }
+    }
+}
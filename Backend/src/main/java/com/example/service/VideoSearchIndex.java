@@ -0,0 +1,272 @@
+package com.example.service;
+
+import com.example.model.Video;
+import com.example.repository.VideoRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire sur le catalogue vidéo (titre, description, tags)
+ *
+ * Remplace les LIKE '%q%' de VideoRepository.searchVideos : classement BM25
+ * avec pondération par champ, le dernier terme de la requête est traité
+ * comme un préfixe pour la recherche à la frappe.
+ */
+@Component
+@Slf4j
+public class VideoSearchIndex {
+
+    // Paramètres BM25 standards
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Pondération des champs (BM25F simplifié)
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float TAGS_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Nombre maximal de termes du dictionnaire couverts par un préfixe
+    private static final int MAX_PREFIX_EXPANSION = 50;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // terme → (videoId → fréquence pondérée)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, IndexedVideo> documents = new HashMap<>();
+    private double totalLength = 0;
+    private volatile boolean ready = false;
+
+    /**
+     * Construire l'index au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Video> videos = videoRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            for (Video video : videos) {
+                addUnlocked(video);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("🔎 Index de recherche vidéo construit: {} vidéos, {} termes", documents.size(), postings.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ajouter ou réindexer une vidéo (les vidéos inactives sont retirées)
+     */
+    public void index(Video video) {
+        if (video == null || video.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(video.getId());
+            addUnlocked(video);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexAll(Collection<Video> videos) {
+        lock.writeLock().lock();
+        try {
+            for (Video video : videos) {
+                if (video.getId() != null) {
+                    removeUnlocked(video.getId());
+                    addUnlocked(video);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long videoId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(videoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rechercher et paginer les vidéos par pertinence
+     * category / difficulty sont des filtres optionnels
+     */
+    public SearchResult search(String query, String category, String difficulty, int page, int size) {
+        List<String> terms = TextNormalizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return new SearchResult(new ArrayList<>(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return new SearchResult(new ArrayList<>(), 0);
+            }
+            double avgLength = totalLength / docCount;
+
+            // Les termes complets + les extensions du dernier terme (préfixe)
+            Set<String> expanded = new LinkedHashSet<>(terms);
+            String prefix = terms.get(terms.size() - 1);
+            int added = 0;
+            for (String term : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet()) {
+                if (added++ >= MAX_PREFIX_EXPANSION) {
+                    break;
+                }
+                expanded.add(term);
+            }
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : expanded) {
+                Map<Long, Float> docs = postings.get(term);
+                if (docs == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                for (Map.Entry<Long, Float> posting : docs.entrySet()) {
+                    IndexedVideo doc = documents.get(posting.getKey());
+                    if (!doc.matches(category, difficulty)) {
+                        continue;
+                    }
+                    double tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * doc.length / avgLength);
+                    scores.merge(posting.getKey(), idf * (tf * (K1 + 1)) / (tf + norm), Double::sum);
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                int cmp = Double.compare(b.getValue(), a.getValue());
+                return cmp != 0 ? cmp : Long.compare(b.getKey(), a.getKey());
+            });
+
+            int from = Math.min(page * size, ranked.size());
+            int to = Math.min(from + size, ranked.size());
+            List<Long> ids = new ArrayList<>(to - from);
+            for (Map.Entry<Long, Double> entry : ranked.subList(from, to)) {
+                ids.add(entry.getKey());
+            }
+            return new SearchResult(ids, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============= MÉTHODES PRIVÉES (verrou en écriture requis) =============
+
+    private void addUnlocked(Video video) {
+        if (!Boolean.TRUE.equals(video.getIsActive())) {
+            return;
+        }
+
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        length += accumulate(frequencies, video.getTitle(), TITLE_WEIGHT);
+        length += accumulate(frequencies, video.getTags() != null ? video.getTags().replace(',', ' ') : null, TAGS_WEIGHT);
+        length += accumulate(frequencies, video.getDescription(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(video.getId(), entry.getValue());
+        }
+        documents.put(video.getId(), new IndexedVideo(
+                video.getCategory(), video.getDifficulty(), length, frequencies.keySet()));
+        totalLength += length;
+    }
+
+    private void removeUnlocked(Long videoId) {
+        IndexedVideo previous = documents.remove(videoId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(videoId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= previous.length;
+    }
+
+    private float accumulate(Map<String, Float> frequencies, String text, float weight) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private static class IndexedVideo {
+        final String category;
+        final String difficulty;
+        final float length;
+        final Set<String> terms;
+
+        IndexedVideo(String category, String difficulty, float length, Set<String> terms) {
+            this.category = category;
+            this.difficulty = difficulty;
+            this.length = length;
+            this.terms = terms;
+        }
+
+        boolean matches(String categoryFilter, String difficultyFilter) {
+            return (categoryFilter == null || categoryFilter.equals(category))
+                    && (difficultyFilter == null || difficultyFilter.equals(difficulty));
+        }
+    }
+
+    /**
+     * Page de résultats : IDs classés par pertinence + nombre total de correspondances
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SearchResult {
+        private List<Long> videoIds;
+        private long totalHits;
+    }
+}
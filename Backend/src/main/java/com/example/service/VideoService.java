@@ -2,10 +2,12 @@ package com.example.service;
 
 import com.example.dto.*;
 import com.example.dto.video.*;
+import com.example.event.ProgressEvent;
 import com.example.model.*;
 import com.example.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -17,7 +19,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,6 +55,27 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private VideoProgressBuffer progressBuffer;
+
+    @Autowired
+    private VideoSearchIndex searchIndex;
+
+    @Autowired
+    private VideoSuggestionIndex suggestionIndex;
+
+    @Autowired
+    private VideoViewCounter viewCounter;
+
+    @Autowired
+    private VideoRecommendationIndex recommendationIndex;
+
+    @Autowired
+    private VideoSimilarityIndex similarityIndex;
+
+    @Autowired
+    private ProgressEventBus progressEventBus;
+
 
     // 🎯 CONSTANTES XP
     private static final int XP_VIDEO_COMPLETED = 50;
@@ -55,6 +84,13 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
     private static final int XP_MILESTONE_5_VIDEOS = 100;
     private static final int MILESTONE_5_VIDEOS = 5;
 
+    // Recommandations : nombre affiché, et candidats examinés pour écarter les vidéos complétées
+    private static final int MAX_RECOMMENDATIONS = 5;
+    private static final int RECOMMENDATION_CANDIDATE_FACTOR = 4;
+
+    // Plafond des listes historiques non paginées (favoris)
+    private static final int MAX_UNPAGED_ITEMS = 200;
+
     /**
      * Récupérer l'utilisateur connecté
      */
@@ -69,6 +105,12 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
      */
     public VideoListResponse listVideos(VideoSearchRequest request) {
         User user = getCurrentUser();
+
+        // Mode curseur : hors recherche textuelle (classement par pertinence, paginé en mémoire)
+        boolean hasQuery = request.getQuery() != null && !request.getQuery().isEmpty();
+        if (request.getCursor() != null && !hasQuery) {
+            return listVideosByCursor(request, user);
+        }
         
         int page = request.getPage() != null ? request.getPage() : 0;
         int size = request.getSize() != null ? request.getSize() : 20;
@@ -83,7 +125,12 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<Video> videoPage;
         
-        if (request.getQuery() != null && !request.getQuery().isEmpty()) {
+        if (request.getQuery() != null && !request.getQuery().isEmpty() && searchIndex.isReady()) {
+            // 🔎 Index inversé en mémoire (classement BM25), puis chargement de la page par ID
+            VideoSearchIndex.SearchResult result = searchIndex.search(
+                    request.getQuery(), request.getCategory(), request.getDifficulty(), page, size);
+            videoPage = new PageImpl<>(findAllInOrder(result.getVideoIds()), pageable, result.getTotalHits());
+        } else if (request.getQuery() != null && !request.getQuery().isEmpty()) {
             videoPage = videoRepository.searchVideos(request.getQuery(), pageable);
         } else if (request.getCategory() != null && request.getDifficulty() != null) {
             videoPage = videoRepository.findByCategoryAndDifficulty(
@@ -95,9 +142,7 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
             videoPage = videoRepository.findByIsActiveTrue(pageable);
         }
         
-        List<VideoDTO> videoDTOs = videoPage.getContent().stream()
-                .map(video -> convertToDTO(video, user))
-                .collect(Collectors.toList());
+        List<VideoDTO> videoDTOs = convertToDTOs(videoPage.getContent(), user);
         
         return VideoListResponse.builder()
                 .videos(videoDTOs)
@@ -109,6 +154,82 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
                 .build();
     }
 
+    /**
+     * Lister le catalogue par curseur (clé de tri, id) : coût constant à toute profondeur
+     * Le COUNT n'est exécuté que si withTotal=true
+     */
+    private VideoListResponse listVideosByCursor(VideoSearchRequest request, User user) {
+        int size = CursorCodec.pageSize(request.getSize());
+        CursorCodec.Decoded after = CursorCodec.decode(request.getCursor());
+        Long afterId = after != null ? after.getId() : CursorCodec.FIRST_ID_DESC;
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Video> videos;
+        if ("popular".equals(request.getSortBy())) {
+            videos = videoRepository.findPopularAfter(request.getCategory(), request.getDifficulty(),
+                    after != null ? after.asInteger() : Integer.MAX_VALUE, afterId, limit);
+        } else if ("duration".equals(request.getSortBy())) {
+            videos = videoRepository.findShortestAfter(request.getCategory(), request.getDifficulty(),
+                    after != null ? after.asInteger() : -1, after != null ? after.getId() : 0L, limit);
+        } else {
+            videos = videoRepository.findRecentAfter(request.getCategory(), request.getDifficulty(),
+                    after != null ? after.asDateTime() : CursorCodec.FIRST_DATE_TIME, afterId, limit);
+        }
+
+        boolean hasNext = videos.size() > size;
+        if (hasNext) {
+            videos = videos.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Video last = videos.get(videos.size() - 1);
+            Object sortKey = "popular".equals(request.getSortBy()) ? last.getViewCount()
+                    : "duration".equals(request.getSortBy()) ? last.getDuration()
+                    : last.getCreatedAt();
+            nextCursor = CursorCodec.encode(sortKey, last.getId());
+        }
+
+        Long total = null;
+        Integer totalPages = null;
+        if (Boolean.TRUE.equals(request.getWithTotal())) {
+            total = videoRepository.countCatalog(request.getCategory(), request.getDifficulty());
+            totalPages = (int) ((total + size - 1) / size);
+        }
+
+        return VideoListResponse.builder()
+                .videos(convertToDTOs(videos, user))
+                .totalPages(totalPages)
+                .totalVideos(total)
+                .hasNext(hasNext)
+                .hasPrevious(after != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Suggestions d'autocomplétion (en mémoire, aucune requête SQL)
+     */
+    public List<VideoSuggestionDTO> suggest(String prefix, Integer limit) {
+        int max = limit != null ? Math.max(1, Math.min(limit, 10)) : 8;
+        return suggestionIndex.suggest(prefix, max);
+    }
+
+    /**
+     * Charger des vidéos par ID en conservant l'ordre demandé
+     */
+    private List<Video> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Video> byId = videoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Video::getId, video -> video));
+        return ids.stream()
+                .map(byId::get)
+                .filter(video -> video != null)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Récupérer une vidéo par ID
      */
@@ -117,8 +238,8 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
         Video video = videoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Vidéo non trouvée"));
         
-        video.setViewCount(video.getViewCount() + 1);
-        videoRepository.save(video);
+        // 👁️ Vue comptée en mémoire, écrite par lot (VideoViewCounter)
+        viewCounter.increment(video.getId());
         
         return convertToDTO(video, user);
     }
@@ -129,13 +250,45 @@ private final VideoFavoriteRepository favoriteRepository;     // ← maintenant
 public List<VideoDTO> getFavoriteVideos() {
     User currentUser = getCurrentUser();
 
-    return favoriteRepository.findByUserOrderByAddedAtDesc(currentUser)
+    // Liste non paginée plafonnée : utiliser getFavoriteVideosPage au-delà
+    List<Video> videos = favoriteRepository.findByUserOrderByAddedAtDesc(currentUser, PageRequest.of(0, MAX_UNPAGED_ITEMS))
             .stream()
             .map(VideoFavorite::getVideo)
-            .map(video -> convertToDTO(video, currentUser))  // ← utilise la méthode qui prend 2 paramètres
             .collect(Collectors.toList());
+
+    return convertToDTOs(videos, currentUser);
 }
 
+    /**
+     * Favoris paginés par curseur (addedAt, id)
+     */
+    public CursorPage<VideoDTO> getFavoriteVideosPage(String cursor, Integer size) {
+        User user = getCurrentUser();
+        int pageSize = CursorCodec.pageSize(size);
+        CursorCodec.Decoded after = CursorCodec.decode(cursor);
+
+        List<VideoFavorite> favorites = favoriteRepository.findPageByUserId(user.getId(),
+                after != null ? after.asDateTime() : CursorCodec.FIRST_DATE_TIME,
+                after != null ? after.getId() : CursorCodec.FIRST_ID_DESC,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = favorites.size() > pageSize;
+        if (hasNext) {
+            favorites = favorites.subList(0, pageSize);
+        }
+        VideoFavorite last = hasNext ? favorites.get(favorites.size() - 1) : null;
+
+        List<Video> videos = favorites.stream()
+                .map(VideoFavorite::getVideo)
+                .collect(Collectors.toList());
+
+        return CursorPage.<VideoDTO>builder()
+                .items(convertToDTOs(videos, user))
+                .hasNext(hasNext)
+                .nextCursor(last != null ? CursorCodec.encode(last.getAddedAt(), last.getId()) : null)
+                .build();
+    }
+
     /**
      * 🆕 Ajouter une vidéo aux favoris + XP
      */
@@ -156,16 +309,15 @@ public List<VideoDTO> getFavoriteVideos() {
         
         favoriteRepository.save(favorite);
         
-        video.setFavoriteCount(video.getFavoriteCount() + 1);
-        videoRepository.save(video);
+        // Incrément SQL : ne pas réécrire view_count avec une valeur périmée
+        videoRepository.incrementFavoriteCount(video.getId());
         
-        // 🎯 AJOUTER XP
+        // 🎯 AJOUTER XP (appliqué en arrière-plan après le commit)
         log.info("⭐ Ajout aux favoris - Attribution de {} XP", XP_FAVORITE_ADDED);
-        AddXpResponse xpResponse = progressService.addXp(
-            XP_FAVORITE_ADDED,
-            "Vidéo ajoutée aux favoris: " + video.getTitle(),
-            "FAVORITE_ADDED"
-        );
+        AddXpResponse xpResponse = progressService.previewXp(
+            user, XP_FAVORITE_ADDED, "FAVORITE_ADDED:" + video.getId());
+        progressEventBus.publish(new ProgressEvent.FavoriteAdded(
+            user.getId(), video.getId(), video.getTitle(), XP_FAVORITE_ADDED));
         
         return xpResponse;
     }
@@ -181,27 +333,34 @@ public List<VideoDTO> getFavoriteVideos() {
         
         favoriteRepository.deleteByUserAndVideo(user, video);
         
-        video.setFavoriteCount(Math.max(0, video.getFavoriteCount() - 1));
-        videoRepository.save(video);
+        videoRepository.decrementFavoriteCount(video.getId());
     }
 
     /**
      * 🆕 Mettre à jour la progression de visionnage + XP si complété
+     * Les simples battements sont absorbés par VideoProgressBuffer (écriture différée par lot),
+     * seules la première écriture et la complétion passent par le chemin synchrone
      */
     @Transactional
     public VideoProgressResponse updateProgress(Long videoId, VideoProgressRequest request) {
         User user = getCurrentUser();
+
+        // ⚡ Chemin rapide : battement fusionné en mémoire, aucune requête vidéo/progression
+        VideoProgressResponse buffered = progressBuffer.tryAbsorb(user.getId(), videoId, request);
+        if (buffered != null) {
+            return buffered;
+        }
+
         Video video = videoRepository.findById(videoId)
                 .orElseThrow(() -> new RuntimeException("Vidéo non trouvée"));
 
-        log.info("📹 UPDATE PROGRESS - User: {}, Video ID: {}, Title: {}",
-                user.getEmail(), video.getId(), video.getTitle());
-        log.info("📹 Request - Timestamp: {}, Completed: {}",
-                request.getCurrentTimestamp(), request.getCompleted());
-        log.info("📹 Video Duration: {} secondes", video.getDuration());
+        log.debug("📹 UPDATE PROGRESS - User: {}, Video ID: {}, Timestamp: {}, Completed: {}",
+                user.getEmail(), video.getId(), request.getCurrentTimestamp(), request.getCompleted());
+
+        Optional<VideoProgress> existing = progressRepository.findByUserAndVideo(user, video);
 
         // ✅ CORRECTION : Récupérer ou créer la progression
-        VideoProgress progress = progressRepository.findByUserAndVideo(user, video)
+        VideoProgress progress = existing
                 .orElseGet(() -> {
                     log.info("🆕 CRÉATION nouvelle progression");
                     VideoProgress newProgress = VideoProgress.builder()
@@ -218,6 +377,9 @@ public List<VideoDTO> getFavoriteVideos() {
                     return newProgress;
                 });
 
+        // Reprendre les battements encore en mémoire avant de modifier la progression
+        progressBuffer.drainInto(progress);
+
         // Sauvegarder l'état avant modification
         boolean wasCompleted = progress.getCompleted() != null && progress.getCompleted();
 
@@ -249,72 +411,60 @@ public List<VideoDTO> getFavoriteVideos() {
             log.warn("⚠️ lastWatchedAt était null, initialisé à now()");
         }
 
-        // 💾 SAUVEGARDE EN BASE
-        try {
-            VideoProgress savedProgress = progressRepository.save(progress);
-            log.info("✅ ✅ ✅ PROGRESSION SAUVEGARDÉE - ID: {}", savedProgress.getId());
-
-            // 🎯 Mettre à jour le compteur de vidéos vues
-            UserProgress userProgress = progressService.getOrCreateUserProgress(user);
-
-            // Si vidéo complétée pour la première fois, incrémenter le compteur
-            if ((autoCompleted || (request.getCompleted() != null && request.getCompleted())) && !wasCompleted) {
-                userProgress.setVideosWatched(userProgress.getVideosWatched() + 1);
-
-                // Ajouter le temps de visionnage (en minutes)
-                int watchTimeMinutes = video.getDuration() / 60;
-                userProgress.setTotalStudyTimeMinutes(
-                        userProgress.getTotalStudyTimeMinutes() + watchTimeMinutes
-                );
+        boolean isNowCompleted = progress.getCompleted() != null && progress.getCompleted();
+        boolean firstCompletion = (isNowCompleted && !wasCompleted) || autoCompleted;
 
-                progressService.updateStreak(userProgress);
-                userProgressRepository.save(userProgress);
-            }
+        // 🔒 Une seule attribution par complétion, même en cas de requêtes concurrentes
+        if (firstCompletion && !progressBuffer.claimCompletion(user.getId(), videoId)) {
+            log.info("♻️ Complétion déjà traitée par une requête concurrente");
+            firstCompletion = false;
+        }
 
-            // ✅ Vérifier immédiatement en base
-            VideoProgress verif = progressRepository.findById(savedProgress.getId()).orElse(null);
-            if (verif != null) {
-                log.info("✅ VÉRIFICATION - Timestamp en base: {}s, Percentage: {}%, lastWatchedAt: {}",
-                        verif.getLastTimestamp(), verif.getProgressPercentage(), verif.getLastWatchedAt());
-            } else {
-                log.error("❌ ERREUR - Progression introuvable après save!");
-            }
+        // 💾 SAUVEGARDE EN BASE
+        try {
+            progress = progressRepository.save(progress);
+            log.info("✅ PROGRESSION SAUVEGARDÉE - ID: {}", progress.getId());
 
         } catch (Exception e) {
+            if (firstCompletion) {
+                progressBuffer.releaseCompletion(user.getId(), videoId);
+            }
             log.error("❌ ❌ ❌ ERREUR SAUVEGARDE: {}", e.getMessage(), e);
             throw new RuntimeException("Impossible de sauvegarder la progression: " + e.getMessage());
         }
 
+        progressBuffer.seed(progress, video.getDuration());
+
         // 🎯 ATTRIBUTION XP SI VIDÉO COMPLÉTÉE
+        // Compteurs, streak et XP appliqués en arrière-plan après le commit (ProgressEventBus)
         AddXpResponse xpResponse = null;
-        boolean isNowCompleted = progress.getCompleted() != null && progress.getCompleted();
+        boolean milestoneReached = false;
 
-        if ((isNowCompleted && !wasCompleted) || autoCompleted) {
+        if (firstCompletion) {
             log.info("🎥 VIDÉO COMPLÉTÉE - Attribution de {} XP", XP_VIDEO_COMPLETED);
-            xpResponse = progressService.addXp(
-                    XP_VIDEO_COMPLETED,
-                    "Vidéo complétée: " + video.getTitle(),
-                    "VIDEO_COMPLETED"
-            );
 
             // 🎯 VÉRIFIER MILESTONE 5 VIDÉOS
             Integer completedCount = progressRepository.countCompletedByUserId(user.getId());
-            if (completedCount != null && completedCount % MILESTONE_5_VIDEOS == 0) {
-                log.info("🎯 MILESTONE! {} vidéos complétées - Bonus {} XP",
-                        completedCount, XP_MILESTONE_5_VIDEOS);
-                xpResponse = progressService.addXp(
-                        XP_MILESTONE_5_VIDEOS,
-                        String.format("Milestone: %d vidéos complétées!", completedCount),
-                        "VIDEO_MILESTONE"
-                );
+            int count = completedCount != null ? completedCount : 0;
+            int milestoneXp = 0;
+            if (count > 0 && count % MILESTONE_5_VIDEOS == 0) {
+                log.info("🎯 MILESTONE! {} vidéos complétées - Bonus {} XP", count, XP_MILESTONE_5_VIDEOS);
+                milestoneXp = XP_MILESTONE_5_VIDEOS;
+                milestoneReached = true;
             }
+
+            xpResponse = progressService.previewXp(
+                    user, XP_VIDEO_COMPLETED + milestoneXp, "VIDEO_COMPLETED:" + video.getId());
+            progressEventBus.publish(new ProgressEvent.VideoCompleted(
+                    user.getId(), video.getId(), video.getTitle(), video.getDuration() / 60,
+                    XP_VIDEO_COMPLETED, count, milestoneXp));
         }
 
         return VideoProgressResponse.builder()
                 .progress(progress)
                 .xpResponse(xpResponse)
-                .videoCompleted(isNowCompleted && !wasCompleted)
-                .milestoneReached(xpResponse != null && xpResponse.getMessage().contains("Milestone"))
+                .videoCompleted(firstCompletion)
+                .milestoneReached(milestoneReached)
                 .build();
     }
 
@@ -322,20 +472,58 @@ public List<VideoDTO> getFavoriteVideos() {
      * Récupérer les vidéos récemment regardées
      */
     public List<VideoDTO> getRecentlyWatched() {
-        User user = getCurrentUser();
+        return getRecentlyWatched(getCurrentUser());
+    }
+
+    public List<VideoDTO> getRecentlyWatched(User user) {
         Pageable pageable = PageRequest.of(0, 10);
         List<VideoProgress> recent = progressRepository.findRecentByUserId(user.getId(), pageable);
         
-        return recent.stream()
-                .map(progress -> convertToDTO(progress.getVideo(), user))
+        List<Video> videos = recent.stream()
+                .map(VideoProgress::getVideo)
+                .collect(Collectors.toList());
+
+        return convertToDTOs(videos, user);
+    }
+
+    /**
+     * Historique de visionnage paginé par curseur (lastWatchedAt, id)
+     */
+    public CursorPage<VideoDTO> getWatchHistoryPage(String cursor, Integer size) {
+        User user = getCurrentUser();
+        int pageSize = CursorCodec.pageSize(size);
+        CursorCodec.Decoded after = CursorCodec.decode(cursor);
+
+        List<VideoProgress> history = progressRepository.findHistoryPageByUserId(user.getId(),
+                after != null ? after.asDateTime() : CursorCodec.FIRST_DATE_TIME,
+                after != null ? after.getId() : CursorCodec.FIRST_ID_DESC,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = history.size() > pageSize;
+        if (hasNext) {
+            history = history.subList(0, pageSize);
+        }
+        VideoProgress last = hasNext ? history.get(history.size() - 1) : null;
+
+        List<Video> videos = history.stream()
+                .map(VideoProgress::getVideo)
                 .collect(Collectors.toList());
+
+        return CursorPage.<VideoDTO>builder()
+                .items(convertToDTOs(videos, user))
+                .hasNext(hasNext)
+                .nextCursor(last != null ? CursorCodec.encode(last.getLastWatchedAt(), last.getId()) : null)
+                .build();
     }
 
     /**
      * Récupérer les recommandations basées sur l'IA
      */
     public VideoRecommendationsResponse getRecommendations() {
-        User user = getCurrentUser();
+        return getRecommendations(getCurrentUser());
+    }
+
+    public VideoRecommendationsResponse getRecommendations(User user) {
         
         List<UserInterest> interests = interestRepository.findByUserAndIsActiveTrue(user);
         List<String> categories = interests.stream()
@@ -346,31 +534,72 @@ public List<VideoDTO> getFavoriteVideos() {
             Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "viewCount"));
             Page<Video> popular = videoRepository.findByIsActiveTrue(pageable);
             
-            List<VideoDTO> videoDTOs = popular.getContent().stream()
-                    .map(video -> convertToDTO(video, user))
-                    .collect(Collectors.toList());
+            List<VideoDTO> videoDTOs = convertToDTOs(popular.getContent(), user);
             
-            return VideoRecommendationsResponse.builder()
+            VideoRecommendationsResponse response = VideoRecommendationsResponse.builder()
                     .recommended(videoDTOs)
                     .reason("Vidéos populaires")
                     .totalRecommendations(videoDTOs.size())
                     .build();
+            addBecauseYouWatched(response, user);
+            return response;
         }
         
-        List<Video> recommended = videoRepository.findAll().stream()
-                .filter(video -> categories.contains(video.getCategory()))
-                .limit(5)
+        // 🎯 Fusion des classements pré-calculés, vidéos déjà complétées écartées
+        String preferredDifficulty = VideoRecommendationIndex.preferredDifficulty(
+                userProgressRepository.findByUserId(user.getId())
+                        .map(UserProgress::getCurrentLevel)
+                        .orElse(null));
+        List<Long> candidates = recommendationIndex.candidates(
+                categories, preferredDifficulty, MAX_RECOMMENDATIONS * RECOMMENDATION_CANDIDATE_FACTOR);
+
+        Set<Long> completed = candidates.isEmpty() ? Set.of()
+                : new HashSet<>(progressRepository.findCompletedVideoIds(user.getId(), candidates));
+        List<Long> recommendedIds = candidates.stream()
+                .filter(id -> !completed.contains(id))
+                .limit(MAX_RECOMMENDATIONS)
                 .collect(Collectors.toList());
         
-        List<VideoDTO> videoDTOs = recommended.stream()
-                .map(video -> convertToDTO(video, user))
-                .collect(Collectors.toList());
+        List<VideoDTO> videoDTOs = convertToDTOs(findAllInOrder(recommendedIds), user);
         
-        return VideoRecommendationsResponse.builder()
+        VideoRecommendationsResponse response = VideoRecommendationsResponse.builder()
                 .recommended(videoDTOs)
                 .reason("Basé sur vos intérêts: " + String.join(", ", categories))
                 .totalRecommendations(videoDTOs.size())
                 .build();
+        addBecauseYouWatched(response, user);
+        return response;
+    }
+
+    /**
+     * Section "Parce que vous avez regardé X" : voisins de la dernière vidéo regardée
+     * qui en possède (VideoSimilarityIndex), vidéos déjà complétées écartées
+     */
+    private void addBecauseYouWatched(VideoRecommendationsResponse response, User user) {
+        Video anchor = progressRepository.findRecentByUserId(user.getId(), PageRequest.of(0, 10)).stream()
+                .map(VideoProgress::getVideo)
+                .filter(video -> similarityIndex.hasNeighbors(video.getId()))
+                .findFirst()
+                .orElse(null);
+        if (anchor == null) {
+            return;
+        }
+
+        List<Long> candidates = similarityIndex.similarTo(
+                anchor.getId(), MAX_RECOMMENDATIONS * RECOMMENDATION_CANDIDATE_FACTOR);
+        Set<Long> completed = candidates.isEmpty() ? Set.of()
+                : new HashSet<>(progressRepository.findCompletedVideoIds(user.getId(), candidates));
+        List<Long> similarIds = candidates.stream()
+                .filter(id -> !completed.contains(id))
+                .limit(MAX_RECOMMENDATIONS)
+                .collect(Collectors.toList());
+        if (similarIds.isEmpty()) {
+            return;
+        }
+
+        response.setBecauseYouWatchedVideoId(anchor.getId());
+        response.setBecauseYouWatchedTitle(anchor.getTitle());
+        response.setBecauseYouWatched(convertToDTOs(findAllInOrder(similarIds), user));
     }
 
     /**
@@ -379,7 +608,7 @@ public List<VideoDTO> getFavoriteVideos() {
     public VideoStatsDTO getUserVideoStats() {
         User user = getCurrentUser();
         
-        List<VideoProgress> allProgress = progressRepository.findByUserOrderByLastWatchedAtDesc(user);
+        Integer watchedCount = progressRepository.countByUserId(user.getId());
         
         Integer totalWatchTime = progressRepository.getTotalWatchTimeByUserId(user.getId());
         Integer totalMinutes = totalWatchTime != null ? totalWatchTime / 60 : 0;
@@ -388,20 +617,60 @@ public List<VideoDTO> getFavoriteVideos() {
         Integer favoritesCount = favoriteRepository.countByUserId(user.getId());
         
         return VideoStatsDTO.builder()
-                .totalVideosWatched(allProgress.size())
+                .totalVideosWatched(watchedCount != null ? watchedCount : 0)
                 .totalWatchTimeMinutes(totalMinutes)
                 .favoritesCount(favoritesCount)
                 .completedCount(completedCount)
                 .build();
     }
 
+    /**
+     * Convertir une page de vidéos en VideoDTO
+     * Progression et favoris chargés en deux requêtes IN, quelle que soit la taille de la page
+     */
+    public List<VideoDTO> convertToDTOs(List<Video> videos, User user) {
+        if (videos.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> videoIds = videos.stream()
+                .map(Video::getId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Object[]> progressByVideo = new HashMap<>();
+        for (Object[] row : progressRepository.findProgressOverlay(user.getId(), videoIds)) {
+            progressByVideo.put((Long) row[0], row);
+        }
+        Set<Long> favoriteIds = new HashSet<>(favoriteRepository.findFavoriteVideoIds(user.getId(), videoIds));
+
+        return videos.stream()
+                .map(video -> {
+                    Object[] progress = progressByVideo.get(video.getId());
+                    return buildDTO(video,
+                            favoriteIds.contains(video.getId()),
+                            progress != null,
+                            progress != null ? (Double) progress[1] : 0.0,
+                            progress != null ? (Integer) progress[2] : 0);
+                })
+                .collect(Collectors.toList());
+    }
+
     /**
      * Convertir Video en VideoDTO
      */
     public VideoDTO convertToDTO(Video video, User user) {
         VideoProgress progress = progressRepository.findByUserAndVideo(user, video).orElse(null);
         boolean isFavorite = favoriteRepository.existsByUserAndVideo(user, video);
-        
+
+        return buildDTO(video,
+                isFavorite,
+                progress != null,
+                progress != null ? progress.getProgressPercentage() : 0.0,
+                progress != null ? progress.getLastTimestamp() : 0);
+    }
+
+    private VideoDTO buildDTO(Video video, boolean isFavorite, boolean isWatched,
+                              Double progressPercentage, Integer lastTimestamp) {
         return VideoDTO.builder()
                 .id(video.getId())
                 .youtubeId(video.getYoutubeId())
@@ -413,14 +682,14 @@ public List<VideoDTO> getFavoriteVideos() {
                 .formattedDuration(video.getFormattedDuration())
                 .category(video.getCategory())
                 .difficulty(video.getDifficulty())
-                .viewCount(video.getViewCount())
+                .viewCount(viewCounter.currentCount(video.getId(), video.getViewCount()))
                 .favoriteCount(video.getFavoriteCount())
                 .tags(video.getTagsList())
                 .isFavorite(isFavorite)
-                .isWatched(progress != null)
-                .progressPercentage(progress != null ? progress.getProgressPercentage() : 0.0)
-                .lastTimestamp(progress != null ? progress.getLastTimestamp() : 0)
+                .isWatched(isWatched)
+                .progressPercentage(progressPercentage)
+                .lastTimestamp(lastTimestamp)
                 .createdAt(video.getCreatedAt())
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,346 @@
+package com.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filtrage collaboratif item-item : "parce que vous avez regardé X"
+ *
+ * Job de fond qui parcourt en flux les complétions (video_progress) et les
+ * favoris (video_favorites) triés par utilisateur, construit la matrice creuse
+ * de co-occurrences, puis calcule en parallèle (fork-join) les K vidéos les
+ * plus similaires à chaque vidéo (cosinus). Seuls ces voisins sont conservés,
+ * en tableaux primitifs.
+ * Les co-occurrences sont comptées dans des tables primitives plafonnées par
+ * vidéo : au-delà du plafond, les paires les moins fréquentes sont élaguées.
+ */
+@Component
+@Slf4j
+public class VideoSimilarityIndex {
+
+    // Interactions d'un utilisateur : complétions et favoris, une ligne par (user, vidéo)
+    private static final String INTERACTIONS_SQL =
+            "SELECT user_id, video_id FROM video_progress WHERE completed = true " +
+            "UNION ALL " +
+            "SELECT user_id, video_id FROM video_favorites " +
+            "ORDER BY user_id";
+
+    // Au-delà, seules les premières vidéos d'un utilisateur comptent (borne les paires à 200²/2)
+    private static final int MAX_BASKET_SIZE = 200;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${video.similarity.top-k:20}")
+    private int topK;
+
+    @Value("${video.similarity.parallelism:4}")
+    private int parallelism;
+
+    @Value("${video.similarity.max-pairs-per-video:1000}")
+    private int maxPairsPerVideo;
+
+    // videoId → voisins triés par similarité décroissante ; remplacé en bloc
+    private volatile Map<Long, Neighbors> neighbors = new HashMap<>();
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "video-similarity-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Premier calcul en arrière-plan pour ne pas retarder le démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        jobExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Recalcul nocturne, exécuté hors du planificateur partagé par les flush
+     */
+    @Scheduled(cron = "${video.similarity.cron:0 30 3 * * *}")
+    public void scheduleRebuild() {
+        jobExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Recalcul de la matrice de similarité
+     */
+    public void rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("⏭️ Calcul des similarités déjà en cours");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            CoOccurrences counts = countCoOccurrences();
+            Map<Long, Neighbors> computed = computeTopK(counts);
+            neighbors = computed;
+            log.info("🤝 Similarités vidéo calculées: {} vidéos, {} utilisateurs en {} ms",
+                    computed.size(), counts.users, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("❌ Échec du calcul des similarités vidéo: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Vidéos les plus similaires à une vidéo (ordre décroissant)
+     */
+    public List<Long> similarTo(Long videoId, int limit) {
+        Neighbors n = neighbors.get(videoId);
+        List<Long> result = new ArrayList<>();
+        if (n == null) {
+            return result;
+        }
+        for (int i = 0; i < n.videoIds.length && result.size() < limit; i++) {
+            result.add(n.videoIds[i]);
+        }
+        return result;
+    }
+
+    public boolean hasNeighbors(Long videoId) {
+        return neighbors.containsKey(videoId);
+    }
+
+    public void clear() {
+        neighbors = new HashMap<>();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    /**
+     * Lecture en flux (aucune entité chargée) : un panier par utilisateur,
+     * chaque paire du panier incrémente la matrice creuse
+     */
+    private CoOccurrences countCoOccurrences() {
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        // MySQL Connector/J : Integer.MIN_VALUE active la lecture ligne par ligne
+        streaming.setFetchSize(Integer.MIN_VALUE);
+
+        CoOccurrences counts = new CoOccurrences(Math.max(topK * 2, maxPairsPerVideo));
+        Set<Long> basket = new LinkedHashSet<>();
+        long[] currentUser = {-1};
+
+        streaming.query(INTERACTIONS_SQL, rs -> {
+            long userId = rs.getLong(1);
+            if (userId != currentUser[0]) {
+                counts.addBasket(basket);
+                basket.clear();
+                currentUser[0] = userId;
+            }
+            if (basket.size() < MAX_BASKET_SIZE) {
+                basket.add(rs.getLong(2));
+            }
+        });
+        counts.addBasket(basket);
+        return counts;
+    }
+
+    /**
+     * Top-K par vidéo en parallèle : similarité cosinus co(i,j) / sqrt(n(i) * n(j))
+     */
+    private Map<Long, Neighbors> computeTopK(CoOccurrences counts) throws Exception {
+        Map<Long, Neighbors> result = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.submit(() -> counts.pairs.entrySet().parallelStream().forEach(entry -> {
+                long videoId = entry.getKey();
+                int videoCount = counts.itemCounts.get(videoId);
+
+                // Tas minimum borné à K
+                PriorityQueue<double[]> heap = new PriorityQueue<>(topK + 1,
+                        (a, b) -> Double.compare(a[1], b[1]));
+                PairCounts pairs = entry.getValue();
+                for (int slot = 0; slot < pairs.keys.length; slot++) {
+                    long otherId = pairs.keys[slot];
+                    if (otherId == PairCounts.EMPTY) {
+                        continue;
+                    }
+                    int otherCount = counts.itemCounts.get(otherId);
+                    double similarity = pairs.counts[slot] / Math.sqrt((double) videoCount * otherCount);
+                    heap.offer(new double[]{otherId, similarity});
+                    if (heap.size() > topK) {
+                        heap.poll();
+                    }
+                }
+
+                int size = heap.size();
+                long[] ids = new long[size];
+                float[] scores = new float[size];
+                for (int i = size - 1; i >= 0; i--) {
+                    double[] top = heap.poll();
+                    ids[i] = (long) top[0];
+                    scores[i] = (float) top[1];
+                }
+                result.put(videoId, new Neighbors(ids, scores));
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        return new HashMap<>(result);
+    }
+
+    /**
+     * Matrice creuse de co-occurrences, construite par un seul thread
+     */
+    private static class CoOccurrences {
+        final Map<Long, Integer> itemCounts = new HashMap<>();
+        final Map<Long, PairCounts> pairs = new HashMap<>();
+        final int maxPairs;
+        int users;
+
+        CoOccurrences(int maxPairs) {
+            this.maxPairs = maxPairs;
+        }
+
+        void addBasket(Set<Long> basket) {
+            if (basket.isEmpty()) {
+                return;
+            }
+            users++;
+            Long[] items = basket.toArray(new Long[0]);
+            for (int i = 0; i < items.length; i++) {
+                itemCounts.merge(items[i], 1, Integer::sum);
+                for (int j = i + 1; j < items.length; j++) {
+                    pairs.computeIfAbsent(items[i], k -> new PairCounts(maxPairs)).increment(items[j]);
+                    pairs.computeIfAbsent(items[j], k -> new PairCounts(maxPairs)).increment(items[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compteurs de co-occurrence d'une vidéo : table à adressage ouvert (long → int)
+     * Plafonnée à maxPairs voisins : une fois pleine, seule la moitié la plus
+     * fréquente est conservée, ce qui borne la mémoire à vidéos × maxPairs.
+     */
+    private static class PairCounts {
+        static final long EMPTY = 0L;  // Les ids de vidéo commencent à 1
+
+        final int maxPairs;
+        long[] keys;
+        int[] counts;
+        int size;
+
+        PairCounts(int maxPairs) {
+            this.maxPairs = maxPairs;
+            this.keys = new long[16];
+            this.counts = new int[16];
+        }
+
+        void increment(long videoId) {
+            int slot = find(keys, videoId);
+            if (keys[slot] == videoId) {
+                counts[slot]++;
+                return;
+            }
+            if (size >= maxPairs) {
+                prune();
+                slot = find(keys, videoId);
+            } else if ((size + 1) * 4 > keys.length * 3) {
+                rehash(keys.length * 2, Integer.MIN_VALUE);
+                slot = find(keys, videoId);
+            }
+            keys[slot] = videoId;
+            counts[slot] = 1;
+            size++;
+        }
+
+        /**
+         * Garder les maxPairs / 2 paires les plus fréquentes
+         */
+        private void prune() {
+            long[] ranked = new long[size];
+            int n = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    ranked[n++] = ((long) counts[slot] << 32) | slot;
+                }
+            }
+            Arrays.sort(ranked);
+            int threshold = (int) (ranked[n - maxPairs / 2] >>> 32);
+            rehash(keys.length, threshold);
+        }
+
+        /**
+         * Recopier les paires dont le compteur atteint minCount (au plus maxPairs / 2 si élagage)
+         */
+        private void rehash(int capacity, int minCount) {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            int limit = minCount == Integer.MIN_VALUE ? Integer.MAX_VALUE : maxPairs / 2;
+            keys = new long[capacity];
+            counts = new int[capacity];
+            size = 0;
+            // Les compteurs strictement au-dessus du seuil d'abord, puis les ex aequo dans la limite
+            for (int pass = 0; pass < 2; pass++) {
+                for (int slot = 0; slot < oldKeys.length && size < limit; slot++) {
+                    if (oldKeys[slot] == EMPTY) {
+                        continue;
+                    }
+                    boolean keep = pass == 0 ? oldCounts[slot] > minCount : oldCounts[slot] == minCount;
+                    if (keep) {
+                        int target = find(keys, oldKeys[slot]);
+                        keys[target] = oldKeys[slot];
+                        counts[target] = oldCounts[slot];
+                        size++;
+                    }
+                }
+            }
+        }
+
+        private static int find(long[] table, long videoId) {
+            int mask = table.length - 1;
+            int slot = Long.hashCode(videoId * 0x9E3779B97F4A7C15L) & mask;
+            while (table[slot] != EMPTY && table[slot] != videoId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Voisins d'une vidéo en tableaux primitifs
+     */
+    private static class Neighbors {
+        final long[] videoIds;
+        final float[] scores;
+
+        Neighbors(long[] videoIds, float[] scores) {
+            this.videoIds = videoIds;
+            this.scores = scores;
+        }
+    }
+}
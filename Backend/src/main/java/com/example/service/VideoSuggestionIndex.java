@@ -0,0 +1,352 @@
+package com.example.service;
+
+import com.example.dto.video.VideoSuggestionDTO;
+import com.example.model.Video;
+import com.example.repository.VideoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplétion du catalogue vidéo par trie de préfixes
+ *
+ * Construit à partir des titres, catégories et tags, avec repli des accents
+ * ("mathematiques" trouve "Mathématiques", "equa" trouve "Équations...").
+ * Chaque nœud garde ses meilleures suggestions pré-calculées : une requête
+ * ne coûte que la longueur du préfixe, sans parcours du sous-arbre.
+ */
+@Component
+@Slf4j
+public class VideoSuggestionIndex {
+
+    private static final int TOP_PER_NODE = 10;
+
+    // Plus une suggestion est partagée par de vidéos, plus elle remonte ; puis la plus courte
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingInt((Suggestion s) -> -s.weight)
+            .thenComparingInt(s -> s.text.length())
+            .thenComparing(s -> s.text);
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node();
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final Map<Long, Set<String>> keysByVideo = new HashMap<>();
+
+    /**
+     * Construire le trie au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Video> videos = videoRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            clearUnlocked();
+            for (Video video : videos) {
+                addUnlocked(video);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("💡 Index d'autocomplétion construit: {} suggestions", suggestions.size());
+    }
+
+    /**
+     * Ajouter ou mettre à jour les suggestions d'une vidéo
+     */
+    public void index(Video video) {
+        if (video == null || video.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(video.getId());
+            addUnlocked(video);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long videoId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(videoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            clearUnlocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suggestions pour un préfixe saisi (accents et casse ignorés)
+     */
+    public List<VideoSuggestionDTO> suggest(String prefix, int limit) {
+        String key = foldKey(prefix);
+        List<VideoSuggestionDTO> result = new ArrayList<>();
+        if (key.isEmpty()) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return result;
+            }
+            for (Suggestion s : node.top) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(VideoSuggestionDTO.builder()
+                        .text(s.text)
+                        .type(s.type)
+                        .videoId(s.videoId)
+                        .build());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============= MÉTHODES PRIVÉES (verrou en écriture requis) =============
+
+    private void addUnlocked(Video video) {
+        if (!Boolean.TRUE.equals(video.getIsActive())) {
+            return;
+        }
+
+        Set<String> keys = new HashSet<>();
+        keys.add(acquire("TITLE", video.getTitle(), video.getId()));
+        keys.add(acquire("CATEGORY", video.getCategory(), null));
+        for (String tag : video.getTagsList()) {
+            keys.add(acquire("TAG", tag.trim(), null));
+        }
+        keys.remove(null);
+        keysByVideo.put(video.getId(), keys);
+    }
+
+    private void removeUnlocked(Long videoId) {
+        Set<String> keys = keysByVideo.remove(videoId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Suggestion s = suggestions.get(key);
+            if (s == null) {
+                continue;
+            }
+            unlink(s);
+            s.weight--;
+            if (s.weight > 0) {
+                link(s);
+            } else {
+                suggestions.remove(key);
+            }
+        }
+    }
+
+    private void clearUnlocked() {
+        root.clear();
+        suggestions.clear();
+        keysByVideo.clear();
+    }
+
+    /**
+     * Incrémenter la référence d'une suggestion (création si absente)
+     */
+    private String acquire(String type, String text, Long videoId) {
+        if (text == null || text.isBlank() || foldKey(text).isEmpty()) {
+            return null;
+        }
+        String key = type + ":" + foldKey(text) + (videoId != null ? ":" + videoId : "");
+        Suggestion s = suggestions.get(key);
+        if (s == null) {
+            s = new Suggestion(text.trim(), type, videoId);
+            suggestions.put(key, s);
+        } else {
+            unlink(s);
+        }
+        s.weight++;
+        link(s);
+        return key;
+    }
+
+    /**
+     * Insérer la suggestion à chaque début de mot ("les equations" → "les equations", "equations")
+     */
+    private void link(Suggestion s) {
+        for (String path : s.paths()) {
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.childOrCreate(path.charAt(i));
+                node.offer(s);
+            }
+            node.terminals.add(s);
+        }
+    }
+
+    private void unlink(Suggestion s) {
+        for (String path : s.paths()) {
+            Node[] trail = new Node[path.length()];
+            Node node = root;
+            for (int i = 0; i < path.length() && node != null; i++) {
+                node = node.child(path.charAt(i));
+                trail[i] = node;
+            }
+            if (node == null) {
+                continue;
+            }
+            node.terminals.remove(s);
+            // Recalcul ascendant des meilleures suggestions, élagage des nœuds vides
+            for (int i = trail.length - 1; i >= 0; i--) {
+                Node current = trail[i];
+                if (current.top.contains(s)) {
+                    current.recompute();
+                }
+                if (current.isEmpty()) {
+                    (i == 0 ? root : trail[i - 1]).removeChild(path.charAt(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Minuscules sans accents, séparateurs ramenés à un espace simple
+     */
+    static String foldKey(String text) {
+        return TextNormalizer.fold(text).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    private static class Suggestion {
+        final String text;
+        final String type;
+        final Long videoId;
+        int weight;
+        private List<String> paths;
+
+        Suggestion(String text, String type, Long videoId) {
+            this.text = text;
+            this.type = type;
+            this.videoId = videoId;
+        }
+
+        List<String> paths() {
+            if (paths == null) {
+                String folded = foldKey(text);
+                paths = new ArrayList<>();
+                paths.add(folded);
+                for (int i = folded.indexOf(' '); i >= 0; i = folded.indexOf(' ', i + 1)) {
+                    paths.add(folded.substring(i + 1));
+                }
+            }
+            return paths;
+        }
+    }
+
+    /**
+     * Nœud du trie : enfants triés dans des tableaux compacts
+     */
+    private static class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        final Set<Suggestion> terminals = new HashSet<>(1);
+        List<Suggestion> top = new ArrayList<>(0);
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = c;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        void offer(Suggestion s) {
+            if (!top.contains(s)) {
+                top.add(s);
+            }
+            top.sort(RANKING);
+            if (top.size() > TOP_PER_NODE) {
+                top = new ArrayList<>(top.subList(0, TOP_PER_NODE));
+            }
+        }
+
+        void recompute() {
+            Set<Suggestion> candidates = new HashSet<>(terminals);
+            for (Node child : children) {
+                candidates.addAll(child.top);
+            }
+            List<Suggestion> ranked = new ArrayList<>(candidates);
+            ranked.sort(RANKING);
+            top = ranked.size() > TOP_PER_NODE ? new ArrayList<>(ranked.subList(0, TOP_PER_NODE)) : ranked;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && terminals.isEmpty();
+        }
+
+        void clear() {
+            labels = new char[0];
+            children = new Node[0];
+            terminals.clear();
+            top = new ArrayList<>(0);
+        }
+    }
+}
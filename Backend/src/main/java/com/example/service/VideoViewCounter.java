@@ -0,0 +1,156 @@
+package com.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs de vues en mémoire, écrits par incréments différés
+ *
+ * GET /api/videos/{id} incrémentait viewCount par lecture-modification-écriture
+ * de l'entité : incréments perdus en concurrence et ligne verrouillée sur les
+ * vidéos populaires. Ici chaque vue est un LongAdder (sans contention), les
+ * deltas sont appliqués par lot avec view_count = view_count + ?.
+ * Le compteur d'une vidéo sans nouvelle vue pendant un cycle est retiré de la map.
+ */
+@Component
+@Slf4j
+public class VideoViewCounter {
+
+    private static final String FLUSH_SQL = "UPDATE videos SET view_count = view_count + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Une entrée par vidéo consultée depuis le dernier cycle
+    private final Map<Long, Counter> pending = new ConcurrentHashMap<>();
+
+    // Compteurs inactifs retirés au cycle précédent : les vues arrivées pendant le retrait y sont relues
+    private List<Retired> retired = new ArrayList<>();
+
+    /**
+     * Compter une vue
+     */
+    public void increment(Long videoId) {
+        while (true) {
+            Counter counter = pending.computeIfAbsent(videoId, id -> new Counter());
+            if (!counter.retired) {
+                counter.adder.increment();
+                return;
+            }
+            // Compteur en cours de retrait : en créer un nouveau
+            pending.remove(videoId, counter);
+        }
+    }
+
+    /**
+     * Vues pas encore écrites en base
+     */
+    public long getPending(Long videoId) {
+        Counter counter = pending.get(videoId);
+        return counter != null ? counter.adder.sum() : 0;
+    }
+
+    /**
+     * Nombre de vues à afficher : valeur persistée + vues en attente
+     */
+    public int currentCount(Long videoId, Integer persisted) {
+        long total = (persisted != null ? persisted : 0) + getPending(videoId);
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    /**
+     * Appliquer les deltas accumulés en un seul lot JDBC
+     * Les deltas ne sont retirés des compteurs qu'après l'écriture : le nombre
+     * affiché (persisté + en attente) ne baisse jamais pendant le flush.
+     */
+    @Scheduled(fixedDelayString = "${video.views.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        List<Counter> counters = new ArrayList<>();
+        List<Long> idle = new ArrayList<>();
+
+        List<Retired> previous = retired;
+        retired = new ArrayList<>();
+        for (Retired entry : previous) {
+            long delta = entry.counter().adder.sum();
+            if (delta > 0) {
+                batch.add(new Object[]{delta, entry.videoId()});
+                counters.add(entry.counter());
+            }
+        }
+
+        for (Map.Entry<Long, Counter> entry : pending.entrySet()) {
+            long delta = entry.getValue().adder.sum();
+            if (delta > 0) {
+                batch.add(new Object[]{delta, entry.getKey()});
+                counters.add(entry.getValue());
+            } else {
+                idle.add(entry.getKey());
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    counters.get(i).adder.add(-(Long) batch.get(i)[0]);
+                }
+                log.debug("👁️ Vues écrites pour {} vidéos", batch.size());
+            } catch (Exception e) {
+                // Deltas laissés dans les compteurs : nouvelle tentative au prochain cycle
+                log.error("❌ Échec écriture des compteurs de vues: {}", e.getMessage());
+            }
+        }
+
+        // Compteurs retirés encore non nuls (échec d'écriture) : gardés pour le prochain cycle
+        for (Retired entry : previous) {
+            if (entry.counter().adder.sum() != 0) {
+                retired.add(entry);
+            }
+        }
+
+        // Vidéos sans vue depuis le dernier cycle : retirer leur compteur
+        for (Long videoId : idle) {
+            Counter counter = pending.get(videoId);
+            if (counter != null && counter.adder.sum() == 0) {
+                counter.retired = true;
+                pending.remove(videoId, counter);
+                retired.add(new Retired(videoId, counter));
+            }
+        }
+    }
+
+    /**
+     * Écrire les vues restantes à l'arrêt de l'application
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Oublier les vues en attente (catalogue vidé)
+     */
+    public synchronized void clear() {
+        pending.clear();
+        retired.clear();
+    }
+
+    private static final class Counter {
+        private final LongAdder adder = new LongAdder();
+        private volatile boolean retired;
+    }
+
+    private record Retired(Long videoId, Counter counter) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.service;
+
+import com.example.dto.XpAuditDTO;
+import com.example.repository.UserProgressRepository;
+import com.example.repository.XpEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Grand livre d'XP (xp_events) : source de vérité des attributions
+ *
+ * Chaque attribution est une ligne ajoutée avec une clé d'idempotence unique
+ * par utilisateur ; un rejeu (retry client, double soumission) est ignoré par
+ * INSERT IGNORE. Le solde de user_progress n'est incrémenté que des lignes
+ * réellement insérées, par UserProgressRepository.applyDeltas (pas de
+ * lecture-modification-écriture de l'entité).
+ */
+@Service
+@Slf4j
+public class XpLedgerService {
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO xp_events (user_id, amount, source, reason, idempotency_key, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String DEFAULT_SOURCE = "MANUAL";
+
+    // Solde d'ouverture : l'XP acquis avant le grand livre, uniquement pour les utilisateurs
+    // sans aucun événement (l'XP attribué via le grand livre n'est jamais recompté au redémarrage)
+    private static final String OPENING_BALANCE_SQL =
+            "INSERT IGNORE INTO xp_events (user_id, amount, source, reason, idempotency_key, created_at) " +
+            "SELECT up.user_id, up.total_xp, 'OPENING_BALANCE', 'Solde antérieur au grand livre', " +
+            "'OPENING_BALANCE', NOW() FROM user_progress up " +
+            "WHERE up.total_xp > 0 AND NOT EXISTS (SELECT 1 FROM xp_events e WHERE e.user_id = up.user_id)";
+
+    private static final int AUDIT_EVENTS = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private XpEventRepository xpEventRepository;
+
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recordOpeningBalances() {
+        int rows = jdbcTemplate.update(OPENING_BALANCE_SQL);
+        if (rows > 0) {
+            log.info("📒 Soldes d'ouverture du grand livre XP enregistrés: {} utilisateurs", rows);
+        }
+    }
+
+    /**
+     * Attribuer de l'XP une seule fois par clé
+     * Retourne l'XP réellement ajouté (0 si l'événement était déjà enregistré)
+     */
+    public int award(Long userId, int amount, String source, String reason, String idempotencyKey) {
+        return awardAll(userId, List.of(new XpGrant(amount, source, reason, idempotencyKey)));
+    }
+
+    /**
+     * Attribuer plusieurs événements en un lot d'insertions puis une seule mise à jour du solde
+     * La ligne user_progress doit exister (ProgressService.getOrCreateUserProgress)
+     */
+    public int awardAll(Long userId, List<XpGrant> grants) {
+        int applied = record(userId, grants);
+        if (applied > 0) {
+            userProgressRepository.applyDeltas(userId, applied, 0, 0, 0, 0, LocalDateTime.now());
+        }
+        return applied;
+    }
+
+    /**
+     * Écrire les événements dans le grand livre sans toucher au solde
+     * Retourne l'XP des événements nouveaux, à appliquer par l'appelant (ex. avec les compteurs du quiz)
+     */
+    public int record(Long userId, List<XpGrant> grants) {
+        if (grants.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(grants.size());
+        for (XpGrant grant : grants) {
+            String source = grant.source() != null ? grant.source() : DEFAULT_SOURCE;
+            String key = grant.idempotencyKey() != null && !grant.idempotencyKey().isBlank()
+                    ? grant.idempotencyKey()
+                    : source + ":" + UUID.randomUUID();
+            batch.add(new Object[]{userId, grant.amount(), source, truncate(grant.reason()), key, now});
+        }
+
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+
+        int applied = 0;
+        for (int i = 0; i < inserted.length; i++) {
+            // Sans rewriteBatchedStatements, le pilote MySQL renvoie le nombre exact de lignes par insertion
+            if (inserted[i] > 0 || inserted[i] == Statement.SUCCESS_NO_INFO) {
+                applied += grants.get(i).amount();
+            } else {
+                log.info("♻️ Événement XP déjà enregistré, ignoré: {}", batch.get(i)[4]);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Solde recalculé depuis le grand livre (audit / reconstruction hors ligne)
+     */
+    public long ledgerBalance(Long userId) {
+        return xpEventRepository.sumAmountByUserId(userId);
+    }
+
+    /**
+     * Comparer le solde de user_progress au grand livre, avec les derniers événements
+     */
+    public XpAuditDTO audit(Long userId, int limit) {
+        long totalXp = userProgressRepository.findByUserId(userId)
+                .map(progress -> progress.getTotalXp() != null ? progress.getTotalXp().longValue() : 0L)
+                .orElseThrow(() -> new RuntimeException("Progression non trouvée pour l'utilisateur " + userId));
+        long balance = ledgerBalance(userId);
+
+        return XpAuditDTO.builder()
+                .userId(userId)
+                .totalXp(totalXp)
+                .ledgerBalance(balance)
+                .drift(totalXp - balance)
+                .recentEvents(xpEventRepository.findRecentByUserId(
+                        userId, PageRequest.of(0, Math.max(1, Math.min(limit, AUDIT_EVENTS)))))
+                .build();
+    }
+
+    private static String truncate(String reason) {
+        return reason != null && reason.length() > 255 ? reason.substring(0, 255) : reason;
+    }
+
+    /**
+     * Attribution à enregistrer ; clé null = événement non rejouable (clé aléatoire)
+     */
+    public record XpGrant(int amount, String source, String reason, String idempotencyKey) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.service;
+
+import com.example.repository.UserProgressRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Classement global par XP en mémoire
+ *
+ * Remplace les COUNT(*) WHERE totalXp > ? de getDetailedStatistics : un arbre
+ * de Fenwick indexé par valeur d'XP compte les utilisateurs par XP, le rang
+ * et le nombre total d'utilisateurs s'obtiennent en O(log n). Reconstruit
+ * depuis user_progress au démarrage, puis périodiquement pour corriger
+ * toute dérive.
+ *
+ * Le total d'XP ne fait que croître (deltas du grand livre) : il sert de
+ * version, une valeur plus ancienne reçue en retard est ignorée. Les totaux
+ * enregistrés pendant une reconstruction sont réappliqués à la fin de celle-ci.
+ */
+@Service
+@Slf4j
+public class XpRankService {
+
+    private static final int INITIAL_CAPACITY = 1 << 14;
+
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // userId → XP connu ; l'arbre compte les utilisateurs par valeur d'XP
+    private final Map<Long, Integer> xpByUser = new HashMap<>();
+    private long[] tree = new long[INITIAL_CAPACITY + 1];
+    private volatile boolean ready = false;
+
+    // Totaux reçus depuis le début de la lecture de la table (null hors reconstruction)
+    private Map<Long, Integer> recordedDuringRebuild;
+
+    /**
+     * Reconstruire le classement depuis la table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${progress.rank.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${progress.rank.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            recordedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Object[]> rows;
+        try {
+            rows = userProgressRepository.findAllUserXp();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                recordedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            xpByUser.clear();
+            for (Object[] row : rows) {
+                int xp = row[1] != null ? Math.max(0, (Integer) row[1]) : 0;
+                xpByUser.put((Long) row[0], xp);
+            }
+            // Un total validé après la lecture ne doit pas être écrasé par la valeur lue
+            recordedDuringRebuild.forEach((userId, xp) -> xpByUser.merge(userId, xp, Math::max));
+            recordedDuringRebuild = null;
+
+            int maxXp = 0;
+            for (int xp : xpByUser.values()) {
+                maxXp = Math.max(maxXp, xp);
+            }
+            tree = new long[capacityFor(maxXp) + 1];
+            for (int xp : xpByUser.values()) {
+                add(xp, 1);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("🏆 Classement XP construit: {} utilisateurs", rows.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Enregistrer le nouveau total d'XP d'un utilisateur
+     * Dans une transaction, appliqué seulement après le commit
+     */
+    public void recordXp(Long userId, Integer totalXp) {
+        if (userId == null || totalXp == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, totalXp);
+                }
+            });
+        } else {
+            apply(userId, totalXp);
+        }
+    }
+
+    /**
+     * Rang pour un total d'XP : 1 + nombre d'utilisateurs ayant strictement plus d'XP
+     */
+    public long rankOf(int totalXp) {
+        lock.readLock().lock();
+        try {
+            long atMost = prefix(Math.min(Math.max(0, totalXp), tree.length - 2));
+            return xpByUser.size() - atMost + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long totalUsers() {
+        lock.readLock().lock();
+        try {
+            return xpByUser.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private void apply(Long userId, int totalXp) {
+        int xp = Math.max(0, totalXp);
+        lock.writeLock().lock();
+        try {
+            if (recordedDuringRebuild != null) {
+                recordedDuringRebuild.merge(userId, xp, Math::max);
+            }
+            Integer previous = xpByUser.get(userId);
+            // Même total, ou total plus ancien appliqué après un plus récent (afterCommit concurrents)
+            if (previous != null && previous >= xp) {
+                return;
+            }
+            if (xp > tree.length - 2) {
+                grow(xp);
+            }
+            if (previous != null) {
+                add(previous, -1);
+            }
+            add(xp, 1);
+            xpByUser.put(userId, xp);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrandir l'arbre (puissance de deux supérieure) et le recalculer
+     */
+    private void grow(int xp) {
+        tree = new long[capacityFor(xp) + 1];
+        for (int value : xpByUser.values()) {
+            add(value, 1);
+        }
+    }
+
+    private static int capacityFor(int xp) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity <= xp + 1) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Arbre de Fenwick : l'indice 0 est réservé, XP x stocké à l'indice x + 1
+    private void add(int xp, long delta) {
+        for (int i = xp + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private long prefix(int xp) {
+        long sum = 0;
+        for (int i = xp + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
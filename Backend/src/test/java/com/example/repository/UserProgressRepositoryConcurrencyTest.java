@@ -0,0 +1,109 @@
+package com.example.repository;
+
+import com.example.model.User;
+import com.example.model.UserProgress;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Écritures par delta sur user_progress : aucune mise à jour perdue sous concurrence
+ *
+ * Exécuté sur un vrai MySQL (Testcontainers) : la requête repose sur l'évaluation
+ * de gauche à droite des affectations d'un UPDATE MySQL. Ignoré sans Docker.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=20"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)  // Chaque delta est validé par sa propre transaction
+@Testcontainers(disabledWithoutDocker = true)
+class UserProgressRepositoryConcurrencyTest {
+
+    private static final int UPDATES = 1000;
+    private static final int THREADS = 16;
+    private static final int XP = 7;
+    private static final int MINUTES = 3;
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+
+    @Test
+    void applyDeltasLosesNoIncrementAcrossParallelUpdates() throws Exception {
+        User user = userRepository.save(User.builder()
+                .nom("Concurrence")
+                .prenom("Test")
+                .email("concurrency-" + System.nanoTime() + "@example.com")
+                .password("secret")
+                .niveau("DEBUTANT")
+                .role(User.Role.USER)
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(userProgressRepository.insertIfAbsent(user.getId(), now)).isEqualTo(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> updates = new ArrayList<>(UPDATES);
+        try {
+            for (int i = 0; i < UPDATES; i++) {
+                int succeeded = i % 4 == 0 ? 1 : 0;  // 1 quiz réussi sur 4
+                updates.add(pool.submit(() -> {
+                    start.await();
+                    return userProgressRepository.applyDeltas(user.getId(), XP, 1, succeeded, MINUTES, 1, now);
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> update : updates) {
+                assertThat(update.get(60, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        UserProgress progress = userProgressRepository.findByUserId(user.getId()).orElseThrow();
+
+        // Compteurs exacts : aucune mise à jour perdue
+        assertThat(progress.getTotalXp()).isEqualTo(UPDATES * XP);
+        assertThat(progress.getQuizCompleted()).isEqualTo(UPDATES);
+        assertThat(progress.getQuizSucceeded()).isEqualTo(UPDATES / 4);
+        assertThat(progress.getVideosWatched()).isEqualTo(UPDATES);
+        assertThat(progress.getTotalStudyTimeMinutes()).isEqualTo(UPDATES * MINUTES);
+
+        // Valeurs dérivées cohérentes avec les compteurs finaux
+        assertThat(progress.getCurrentLevel()).isEqualTo(progress.getTotalXp() / 1000 + 1);
+        assertThat(progress.getAverageSuccessRate())
+                .isEqualTo(progress.getQuizSucceeded() * 100.0 / progress.getQuizCompleted());
+
+        // Même jour : le streak reste à 1
+        assertThat(progress.getCurrentStreak()).isEqualTo(1);
+        assertThat(progress.getLongestStreak()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Correction par le corrigé pré-compilé : QCM, vrai/faux et réponse courte
+ */
+class AnswerKeyTest {
+
+    private static final AnswerKey KEY = AnswerKey.compile(List.of(
+            // Volontairement dans le désordre : le corrigé trie les ids
+            question(30L, "REPONSE_COURTE", 3,
+                    option(301L, "  Photosynthèse ", null, true, 1),
+                    option(302L, "Chlorophylle", null, true, 2)),
+            question(10L, "QCM", 2,
+                    option(103L, "Lyon", "C", false, 3),
+                    option(102L, "Paris", "B", true, 2),
+                    option(101L, "Marseille", "A", false, 1)),
+            question(20L, "VRAI_FAUX", 1,
+                    option(201L, "Vrai", null, true, 1),
+                    option(202L, "Faux", null, false, 2)),
+            question(40L, "DESSIN", 5,
+                    option(401L, "Cercle", null, true, 1))));
+
+    @Test
+    void indexOfFindsQuestionsOfTheQuizOnly() {
+        assertThat(KEY.indexOf(10L)).isGreaterThanOrEqualTo(0);
+        assertThat(KEY.indexOf(20L)).isGreaterThanOrEqualTo(0);
+        assertThat(KEY.indexOf(30L)).isGreaterThanOrEqualTo(0);
+        assertThat(KEY.indexOf(40L)).isGreaterThanOrEqualTo(0);
+        assertThat(KEY.indexOf(15L)).isEqualTo(-1);
+        assertThat(KEY.indexOf(99L)).isEqualTo(-1);
+    }
+
+    @Test
+    void qcmComparesTheSubmittedOptionId() {
+        int index = KEY.indexOf(10L);
+
+        assertThat(KEY.isCorrect(index, "102")).isTrue();
+        assertThat(KEY.isCorrect(index, " 102 ")).isTrue();
+        assertThat(KEY.isCorrect(index, "101")).isFalse();
+        // Option correcte d'une autre question
+        assertThat(KEY.isCorrect(index, "201")).isFalse();
+        assertThat(KEY.isCorrect(index, "Paris")).isFalse();
+        assertThat(KEY.isCorrect(index, "")).isFalse();
+        assertThat(KEY.isCorrect(index, null)).isFalse();
+        assertThat(KEY.isCorrect(index, "12345678901234567890")).isFalse();
+    }
+
+    @Test
+    void trueFalseIgnoresCaseAndSurroundingSpaces() {
+        int index = KEY.indexOf(20L);
+
+        assertThat(KEY.isCorrect(index, "Vrai")).isTrue();
+        assertThat(KEY.isCorrect(index, "  vRAI ")).isTrue();
+        assertThat(KEY.isCorrect(index, "Faux")).isFalse();
+        assertThat(KEY.isCorrect(index, "Vraiment")).isFalse();
+    }
+
+    @Test
+    void shortAnswerAcceptsEveryCorrectOption() {
+        int index = KEY.indexOf(30L);
+
+        assertThat(KEY.isCorrect(index, "photosynthèse")).isTrue();
+        assertThat(KEY.isCorrect(index, " CHLOROPHYLLE\t")).isTrue();
+        assertThat(KEY.isCorrect(index, "Photo synthèse")).isFalse();
+    }
+
+    @Test
+    void unsupportedTypeAndUnknownQuestionAreNeverCorrect() {
+        assertThat(KEY.isCorrect(KEY.indexOf(40L), "401")).isFalse();
+        assertThat(KEY.isCorrect(KEY.indexOf(40L), "Cercle")).isFalse();
+        assertThat(KEY.isCorrect(-1, "102")).isFalse();
+    }
+
+    @Test
+    void pointsAreEarnedOnlyForCorrectAnswers() {
+        int index = KEY.indexOf(30L);
+
+        assertThat(KEY.pointsEarned(index, true)).isEqualTo(3);
+        assertThat(KEY.pointsEarned(index, false)).isZero();
+        assertThat(KEY.pointsEarned(-1, true)).isZero();
+    }
+
+    @Test
+    void correctAnswerTextShowsTheFirstCorrectOption() {
+        assertThat(KEY.correctAnswerText(KEY.indexOf(10L))).isEqualTo("B. Paris");
+        assertThat(KEY.correctAnswerText(KEY.indexOf(20L))).isEqualTo("Vrai");
+        assertThat(KEY.correctAnswerText(-1)).isEqualTo("Non disponible");
+
+        AnswerKey noCorrectOption = AnswerKey.compile(List.of(
+                question(50L, "QCM", 1, option(501L, "Aucune", "A", false, 1))));
+        assertThat(noCorrectOption.correctAnswerText(0)).isEqualTo("Non disponible");
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private static QuizSnapshot.QuestionContent question(Long id, String type, int points,
+                                                         QuizSnapshot.OptionContent... options) {
+        return new QuizSnapshot.QuestionContent(id, type, "Question " + id, null, points, null, List.of(options));
+    }
+
+    private static QuizSnapshot.OptionContent option(Long id, String text, String letter,
+                                                     boolean correct, Integer orderNumber) {
+        return new QuizSnapshot.OptionContent(id, text, letter, correct, orderNumber);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.service;
+
+import com.example.model.AnalyticsCheckpoint;
+import com.example.model.QuestionOptionPick;
+import com.example.model.QuestionStats;
+import com.example.repository.AnalyticsCheckpointRepository;
+import com.example.repository.QuestionOptionPickRepository;
+import com.example.repository.QuestionStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Statistiques par question : réponse modifiée et avancement du rattrapage
+ *
+ * Exécuté sur un vrai MySQL (Testcontainers) : les écritures sont des upserts
+ * ON DUPLICATE KEY UPDATE. Ignoré sans Docker.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)  // Le service valide ses propres transactions
+@Testcontainers(disabledWithoutDocker = true)
+@Import(QuestionAnalyticsService.class)
+class QuestionAnalyticsServiceTest {
+
+    private static final long QUIZ_ID = 1L;
+    private static final long QUESTION_ID = 10L;
+    private static final long OPTION_A = 101L;
+    private static final long OPTION_B = 102L;
+
+    private static final QuizSnapshot.QuestionContent QUESTION = new QuizSnapshot.QuestionContent(
+            QUESTION_ID, "QCM", "Capitale de la France ?", null, 1, 1, List.of(
+                    new QuizSnapshot.OptionContent(OPTION_A, "Lyon", "A", false, 1),
+                    new QuizSnapshot.OptionContent(OPTION_B, "Paris", "B", true, 2)));
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @MockBean
+    private QuizSnapshotCache quizSnapshotCache;
+
+    @Autowired
+    private QuestionAnalyticsService questionAnalyticsService;
+
+    @Autowired
+    private QuestionStatsRepository questionStatsRepository;
+
+    @Autowired
+    private QuestionOptionPickRepository questionOptionPickRepository;
+
+    @Autowired
+    private AnalyticsCheckpointRepository analyticsCheckpointRepository;
+
+    @BeforeEach
+    void reset() {
+        questionStatsRepository.deleteAll();
+        questionOptionPickRepository.deleteAll();
+        analyticsCheckpointRepository.deleteAll();
+    }
+
+    @Test
+    void changedAnswerReplacesThePreviousOneInTheCounters() {
+        QuestionAnalyticsService.AnswerSample wrong =
+                new QuestionAnalyticsService.AnswerSample(String.valueOf(OPTION_A), false, 10);
+        QuestionAnalyticsService.AnswerSample right =
+                new QuestionAnalyticsService.AnswerSample(String.valueOf(OPTION_B), true, 25);
+
+        // Première réponse écrite, puis modifiée : la soustraction porte sur les lignes existantes
+        questionAnalyticsService.record(QUIZ_ID, QUESTION, null, wrong);
+        questionAnalyticsService.flush();
+        questionAnalyticsService.record(QUIZ_ID, QUESTION, wrong, right);
+        questionAnalyticsService.flush();
+
+        QuestionStats stats = questionStatsRepository.findById(QUESTION_ID).orElseThrow();
+        assertThat(stats.getAttempts()).isEqualTo(1);
+        assertThat(stats.getCorrectCount()).isEqualTo(1);
+        assertThat(stats.getTimeSumSeconds()).isEqualTo(25);
+        assertThat(stats.getTimedAttempts()).isEqualTo(1);
+        assertThat(picks()).containsEntry(OPTION_A, 0L).containsEntry(OPTION_B, 1L);
+
+        // Modification et nouvelle réponse dans le même cycle de flush
+        questionAnalyticsService.record(QUIZ_ID, QUESTION, right, wrong);
+        questionAnalyticsService.record(QUIZ_ID, QUESTION, null, right);
+        questionAnalyticsService.flush();
+
+        stats = questionStatsRepository.findById(QUESTION_ID).orElseThrow();
+        assertThat(stats.getAttempts()).isEqualTo(2);
+        assertThat(stats.getCorrectCount()).isEqualTo(1);
+        assertThat(stats.getTimeSumSeconds()).isEqualTo(35);
+        assertThat(stats.getTimedAttempts()).isEqualTo(2);
+        assertThat(picks()).containsEntry(OPTION_A, 1L).containsEntry(OPTION_B, 1L);
+    }
+
+    @Test
+    void chunkIsWrittenOnlyIfTheCheckpointDidNotMove() {
+        analyticsCheckpointRepository.save(AnalyticsCheckpoint.builder()
+                .name("question_analytics")
+                .lastId(0L)
+                .horizonId(200L)
+                .updatedAt(LocalDateTime.now())
+                .build());
+        assertThat(questionAnalyticsService.isCatchUpPending()).isTrue();
+
+        questionAnalyticsService.writeChunk(chunk(), 0, 100);
+
+        assertThat(analyticsCheckpointRepository.findById("question_analytics").orElseThrow().getLastId())
+                .isEqualTo(100);
+        assertThat(questionStatsRepository.findById(QUESTION_ID).orElseThrow().getAttempts()).isEqualTo(1);
+
+        // Même tranche rejouée depuis un point périmé (autre instance) : rien n'est écrit
+        assertThatThrownBy(() -> questionAnalyticsService.writeChunk(chunk(), 0, 100))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(analyticsCheckpointRepository.findById("question_analytics").orElseThrow().getLastId())
+                .isEqualTo(100);
+        assertThat(questionStatsRepository.findById(QUESTION_ID).orElseThrow().getAttempts()).isEqualTo(1);
+        assertThat(picks()).containsEntry(OPTION_B, 1L);
+
+        questionAnalyticsService.writeChunk(chunk(), 100, 200);
+
+        assertThat(questionStatsRepository.findById(QUESTION_ID).orElseThrow().getAttempts()).isEqualTo(2);
+        assertThat(questionAnalyticsService.isCatchUpPending()).isFalse();
+    }
+
+    // ============= MÉTHODES PRIVÉES =============
+
+    private static Map<Long, QuestionAnalyticsService.QuestionDelta> chunk() {
+        QuestionAnalyticsService.QuestionDelta delta = new QuestionAnalyticsService.QuestionDelta(QUIZ_ID);
+        delta.add(new QuestionAnalyticsService.AnswerSample(String.valueOf(OPTION_B), true, 30), OPTION_B, 1);
+        return Map.of(QUESTION_ID, delta);
+    }
+
+    private Map<Long, Long> picks() {
+        return questionOptionPickRepository.findByQuestionIdIn(List.of(QUESTION_ID)).stream()
+                .collect(Collectors.toMap(QuestionOptionPick::getOptionId, QuestionOptionPick::getPickCount));
+    }
+}